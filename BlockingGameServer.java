@@ -0,0 +1,247 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Multiplayer server with plain blocking sockets and threads per connection:
+//   java BlockingGameServer [--port 7777]
+// Each connection gets two threads: a reader that feeds frames to its
+// ServerSession and a writer that drains its output queue. Frames are sent
+// while a table is locked and by the spectator ticker, so writing them on
+// the sending thread would let one slow socket hold up a game or every
+// spectator; with a writer of its own a connection costs a second thread
+// instead. On a JDK with virtual threads (21 and later) both are virtual
+// threads and cost a few hundred bytes each; older JDKs fall back to a
+// cached pool of platform threads.
+// The game rules and the protocol are the same as NioGameServer's.
+final class BlockingGameServer implements GameServer
+{
+	// Unsent output a connection may build up before it is dropped
+	private static final int MAX_PENDING_BYTES = 64 * 1024;
+	// Queued to a writer to make it close the socket
+	private static final byte[] CLOSE = new byte[0];
+
+	private final GameHall hall = new GameHall();
+	private final ServerSocket server;
+	private final ExecutorService executor;
+	private final boolean virtualThreads;
+	private final AtomicInteger connections = new AtomicInteger();
+	// Blocked reads ignore interrupts, so close() closes these sockets itself
+	private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+	private Thread acceptor;
+
+	BlockingGameServer(int port) throws IOException
+	{
+		server = new ServerSocket(port, 1024);
+		ExecutorService virtual = newVirtualThreadExecutor();
+		virtualThreads = virtual != null;
+		executor = virtual != null ? virtual : Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "connection");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// Executors.newVirtualThreadPerTaskExecutor() when the running JDK has
+	// it; looked up reflectively so the code still builds for Java 8
+	private static ExecutorService newVirtualThreadExecutor()
+	{
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch(ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int port = 7777;
+		if(args.length == 2 && args[0].equals("--port")) {
+			port = Integer.parseInt(args[1]);
+		} else if(args.length != 0) {
+			System.err.println("Usage: java BlockingGameServer [--port 7777]");
+			System.exit(2);
+		}
+		BlockingGameServer server = new BlockingGameServer(port);
+		server.start();
+		System.out.println("Serving on port " + server.getPort() + " with " + server.describe());
+		server.report();
+	}
+
+	public void start()
+	{
+		acceptor = new Thread(this::acceptConnections, "acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	public int getPort()
+	{
+		return server.getLocalPort();
+	}
+
+	public GameHall getHall()
+	{
+		return hall;
+	}
+
+	public int getConnectionCount()
+	{
+		return connections.get();
+	}
+
+	public String describe()
+	{
+		return virtualThreads ? "2 virtual threads per connection (reader and writer)"
+			: "2 platform threads per connection (no virtual threads on this JDK)";
+	}
+
+	boolean usesVirtualThreads()
+	{
+		return virtualThreads;
+	}
+
+	public void close() throws IOException
+	{
+		server.close();
+		for(Connection connection : open) {
+			connection.dropNow();
+		}
+		executor.shutdownNow();
+		hall.close();
+	}
+
+	private void acceptConnections()
+	{
+		while(!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				Connection connection = new Connection(socket);
+				connections.incrementAndGet();
+				open.add(connection);
+				if(server.isClosed()) {
+					connection.dropNow(); // Missed by close()
+					break;
+				}
+				executor.execute(connection::readFrames);
+				executor.execute(connection::writeFrames);
+			} catch(IOException e) {
+				if(!server.isClosed()) {
+					System.err.println("Accept failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private final class Connection implements ServerSession.Connection
+	{
+		private final Socket socket;
+		private final ServerSession session = new ServerSession(hall, this);
+		private final BlockingQueue<byte[]> output = new LinkedBlockingQueue<>();
+		private final AtomicInteger pendingBytes = new AtomicInteger();
+		private volatile boolean closed = false;
+
+		Connection(Socket socket)
+		{
+			this.socket = socket;
+		}
+
+		public void send(byte[] frame)
+		{
+			if(closed) {
+				return;
+			}
+			if(pendingBytes.addAndGet(frame.length) > MAX_PENDING_BYTES) {
+				dropNow(); // Too slow to keep up
+				return;
+			}
+			output.add(frame);
+		}
+
+		public void close()
+		{
+			output.add(CLOSE); // After what is already queued
+		}
+
+		private void readFrames()
+		{
+			byte[] buffer = new byte[4096];
+			byte[] incoming = new byte[WireProtocol.MAX_FRAME];
+			int incomingLength = 0;
+			try {
+				InputStream in = socket.getInputStream();
+				for(int count; (count = in.read(buffer)) >= 0; ) {
+					for(int i = 0; i < count; i++) {
+						incoming[incomingLength++] = buffer[i];
+						int length = WireProtocol.frameLength(incoming, incomingLength);
+						if(length < 0 || length > incoming.length) {
+							return; // Not a protocol frame
+						}
+						if(incomingLength == length) {
+							session.receive(incoming);
+							incomingLength = 0;
+						}
+					}
+				}
+			} catch(IOException e) {
+				// Disconnected
+			} finally {
+				dropNow();
+			}
+		}
+
+		// Writes queued frames, flushing whenever the queue runs dry
+		private void writeFrames()
+		{
+			try {
+				OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 4096);
+				while(true) {
+					byte[] bytes = output.take();
+					if(bytes == CLOSE) {
+						break;
+					}
+					out.write(bytes);
+					pendingBytes.addAndGet(-bytes.length);
+					if(output.isEmpty()) {
+						out.flush();
+					}
+				}
+				out.flush();
+			} catch(IOException | InterruptedException e) {
+				// Disconnected or shutting down
+			} finally {
+				dropNow();
+			}
+		}
+
+		private void dropNow()
+		{
+			synchronized(this) {
+				if(closed) {
+					return;
+				}
+				closed = true;
+			}
+			connections.decrementAndGet();
+			open.remove(this);
+			output.clear();
+			output.add(CLOSE);
+			try {
+				socket.close();
+			} catch(IOException e) {
+				// Already gone
+			}
+			session.disconnected();
+		}
+	}
+}
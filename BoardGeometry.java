@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Board size N and win length K, with the line tables generated from them.
+// Cells are numbered row-major and fit in a long bitboard, so N is capped at 8.
+final class BoardGeometry
+{
+	static final int MIN_SIZE = 3;
+	static final int MAX_SIZE = 8;
+
+	private static final BoardGeometry[][] INSTANCES = new BoardGeometry[MAX_SIZE + 1][MAX_SIZE + 1];
+
+	static {
+		for(int size = MIN_SIZE; size <= MAX_SIZE; size++) {
+			for(int winLength = MIN_SIZE; winLength <= size; winLength++) {
+				INSTANCES[size][winLength] = new BoardGeometry(size, winLength);
+			}
+		}
+	}
+
+	// Classic 3x3, three in a row
+	static final BoardGeometry STANDARD = INSTANCES[3][3];
+
+	private final int size;
+	private final int winLength;
+	private final int cellCount;
+	private final long fullMask;
+	private final long[] lineMasks;
+	private final int[][] lineCells;
+	private final int[][] cellLines;
+	private final int[] moveOrder;
+	private final Symmetry symmetry;
+
+	static BoardGeometry of(int size, int winLength)
+	{
+		if(size < MIN_SIZE || size > MAX_SIZE) {
+			throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE);
+		}
+		if(winLength < MIN_SIZE || winLength > size) {
+			throw new IllegalArgumentException("Win length must be between " + MIN_SIZE + " and " + size);
+		}
+		return INSTANCES[size][winLength];
+	}
+
+	private BoardGeometry(int size, int winLength)
+	{
+		this.size = size;
+		this.winLength = winLength;
+		this.cellCount = size * size;
+		this.fullMask = cellCount == 64 ? -1L : (1L << cellCount) - 1;
+
+		// Every run of K cells along a row, column or diagonal
+		int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+		List<int[]> lines = new ArrayList<>();
+		for(int[] direction : directions) {
+			for(int row = 0; row < size; row++) {
+				for(int col = 0; col < size; col++) {
+					int endRow = row + direction[0] * (winLength - 1);
+					int endCol = col + direction[1] * (winLength - 1);
+					if(endRow < 0 || endRow >= size || endCol < 0 || endCol >= size) {
+						continue;
+					}
+					int[] cells = new int[winLength];
+					for(int i = 0; i < winLength; i++) {
+						cells[i] = (row + direction[0] * i) * size + (col + direction[1] * i);
+					}
+					lines.add(cells);
+				}
+			}
+		}
+		lineCells = lines.toArray(new int[0][]);
+		lineMasks = new long[lineCells.length];
+		int[] linesThrough = new int[cellCount];
+		for(int i = 0; i < lineCells.length; i++) {
+			for(int cell : lineCells[i]) {
+				lineMasks[i] |= 1L << cell;
+				linesThrough[cell]++;
+			}
+		}
+		cellLines = new int[cellCount][];
+		for(int cell = 0; cell < cellCount; cell++) {
+			cellLines[cell] = new int[linesThrough[cell]];
+		}
+		int[] filled = new int[cellCount];
+		for(int i = 0; i < lineCells.length; i++) {
+			for(int cell : lineCells[i]) {
+				cellLines[cell][filled[cell]++] = i;
+			}
+		}
+
+		// Search order: cells on the most lines first, then closest to the center
+		Integer[] order = new Integer[cellCount];
+		for(int i = 0; i < cellCount; i++) {
+			order[i] = i;
+		}
+		java.util.Arrays.sort(order, (a, b) -> {
+			if(linesThrough[a] != linesThrough[b]) {
+				return linesThrough[b] - linesThrough[a];
+			}
+			return centerDistance(a) - centerDistance(b);
+		});
+		moveOrder = new int[cellCount];
+		for(int i = 0; i < cellCount; i++) {
+			moveOrder[i] = order[i];
+		}
+
+		symmetry = new Symmetry(size);
+	}
+
+	// Squared distance from the board center, doubled to stay integral
+	private int centerDistance(int cell)
+	{
+		int dr = 2 * (cell / size) - (size - 1);
+		int dc = 2 * (cell % size) - (size - 1);
+		return dr * dr + dc * dc;
+	}
+
+	int getSize()
+	{
+		return size;
+	}
+
+	int getWinLength()
+	{
+		return winLength;
+	}
+
+	int getCellCount()
+	{
+		return cellCount;
+	}
+
+	long getFullMask()
+	{
+		return fullMask;
+	}
+
+	long[] getLineMasks()
+	{
+		return lineMasks;
+	}
+
+	// Cell indices of each line, in the same order as getLineMasks()
+	int[][] getLineCells()
+	{
+		return lineCells;
+	}
+
+	// Indices of the lines passing through each cell
+	int[][] getCellLines()
+	{
+		return cellLines;
+	}
+
+	int[] getMoveOrder()
+	{
+		return moveOrder;
+	}
+
+	Symmetry getSymmetry()
+	{
+		return symmetry;
+	}
+
+	boolean isStandard()
+	{
+		return this == STANDARD;
+	}
+
+	public String toString()
+	{
+		return size + "x" + size + ", " + winLength + " in a row";
+	}
+}
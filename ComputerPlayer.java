@@ -0,0 +1,132 @@
+import java.util.SplittableRandom;
+
+// The computer opponent's difficulty levels, kept apart from the window so
+// the same behaviour can be played headless. Moves are chosen from Position
+// copies and never touch AWT, so getMove() may run on any thread, but one
+// player must only be used by one thread at a time.
+// Random choices come from the player's own generator. Seeding it for each
+// game with gameSeed() makes a run replayable no matter which thread played
+// which game.
+final class ComputerPlayer
+{
+	static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard", "Expert", "MCTS"};
+
+	private final MinimaxEngine engine;
+	private final MctsEngine mctsEngine;
+	private final PerfectPlayTable perfectPlay = PerfectPlayTable.get();
+	private final Tablebase tablebase; // Null when no file exists for the board
+	private SplittableRandom random = new SplittableRandom();
+
+	ComputerPlayer(BoardGeometry geometry)
+	{
+		this(new MinimaxEngine(geometry), createMctsEngine(geometry));
+	}
+
+	ComputerPlayer(MinimaxEngine engine, MctsEngine mctsEngine)
+	{
+		this.engine = engine;
+		this.mctsEngine = mctsEngine;
+		this.tablebase = Tablebase.forGeometry(engine.getGeometry());
+	}
+
+	// Monte Carlo opponent with a time budget per move
+	private static MctsEngine createMctsEngine(BoardGeometry geometry)
+	{
+		MctsEngine mcts = new MctsEngine(geometry);
+		mcts.setTimeBudgetMillis(750);
+		return mcts;
+	}
+
+	// A name getMove() understands: a difficulty level or "Random"
+	static boolean isDifficulty(String name)
+	{
+		return name.equals("Random") || java.util.Arrays.asList(DIFFICULTIES).contains(name);
+	}
+
+	MinimaxEngine getEngine()
+	{
+		return engine;
+	}
+
+	MctsEngine getMctsEngine()
+	{
+		return mctsEngine;
+	}
+
+	Tablebase getTablebase()
+	{
+		return tablebase;
+	}
+
+	// Seed for game n of a run, the same whichever thread plays it
+	static long gameSeed(long runSeed, long game)
+	{
+		return new SplittableRandom(runSeed + game * 0x9E3779B97F4A7C15L).nextLong();
+	}
+
+	// Restarts the random choices, including MCTS playouts, from a seed
+	void setSeed(long seed)
+	{
+		random = new SplittableRandom(seed);
+		mctsEngine.setSeed(random.nextLong());
+	}
+
+	// Releases the engines' worker threads
+	void shutdown()
+	{
+		engine.shutdown();
+		mctsEngine.shutdown();
+	}
+
+	int getMove(String difficulty, Position board, int side)
+	{
+		switch(difficulty) {
+			case "Random": // Headless alias for Easy
+			case "Easy":
+				return getRandomMove(board);
+			case "Medium":
+				return random.nextDouble() < 0.7 ? getBestMove(board, side) : getRandomMove(board);
+			case "Hard":
+				return random.nextDouble() < 0.9 ? getBestMove(board, side) : getRandomMove(board);
+			case "Expert":
+				return getBestMove(board, side);
+			case "MCTS":
+				return mctsEngine.getBestMove(board, side);
+			default:
+				return getBestMove(board, side);
+		}
+	}
+
+	int getBestMove(Position position, int side)
+	{
+		// Every legal 3x3 position is in the solved table; bigger boards may
+		// have their openings in a tablebase; search anything else
+		if(perfectPlay.contains(position)) {
+			return perfectPlay.getBestMove(position);
+		}
+		if(tablebase != null) {
+			int move = tablebase.getBestMove(position);
+			if(move >= 0) {
+				return move;
+			}
+		}
+		return engine.getBestMove(position, side);
+	}
+
+	int getRandomMove(Position board)
+	{
+		return getRandomMove(board, random);
+	}
+
+	// Picks the k-th free cell straight from the bitboard; nothing is boxed
+	static int getRandomMove(Position board, SplittableRandom random)
+	{
+		long free = board.emptyCells();
+		if(free == 0) return -1;
+
+		for(int skip = random.nextInt(Long.bitCount(free)); skip > 0; skip--) {
+			free &= free - 1;
+		}
+		return Long.numberOfTrailingZeros(free);
+	}
+}
@@ -0,0 +1,209 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+
+// Micro-benchmarks for the AI engines and the win checks, run headless:
+//   java EngineBenchmark [name filter]
+// -Dtictactoe.bench.millis sets the length of each iteration (default 1000).
+// Each benchmark gets warmup iterations, then timed iterations. The report
+// gives throughput (mean and standard deviation over the timed iterations)
+// and bytes allocated per operation. Allocation is read from the JVM's
+// per-thread counters, the same source a GC profiler uses, summed over all
+// threads so pooled search workers are counted too.
+final class EngineBenchmark
+{
+	private static final int WARMUP_ITERATIONS = 3;
+	private static final int MEASURED_ITERATIONS = 5;
+	private static final long ITERATION_NANOS = Long.getLong("tictactoe.bench.millis", 1000) * 1_000_000L;
+
+	// Results land here so the JIT cannot drop the work
+	private static volatile int sink;
+
+	private final String name;
+	private final IntSupplier operation;
+
+	private EngineBenchmark(String name, IntSupplier operation)
+	{
+		this.name = name;
+		this.operation = operation;
+	}
+
+	public static void main(String[] args)
+	{
+		String filter = args.length > 0 ? args[0] : "";
+		List<EngineBenchmark> benchmarks = createBenchmarks();
+
+		System.out.println(String.format("%-52s %14s %12s %12s", "Benchmark", "ops/s", "+/-", "B/op"));
+		for(EngineBenchmark benchmark : benchmarks) {
+			if(benchmark.name.contains(filter)) {
+				benchmark.run();
+			}
+		}
+	}
+
+	private static List<EngineBenchmark> createBenchmarks()
+	{
+		List<EngineBenchmark> benchmarks = new ArrayList<>();
+
+		// Fixtures: opening, middle game and a few plies from the end
+		List<Fixture> small = new ArrayList<>();
+		small.add(new Fixture("3x3 empty", BoardGeometry.STANDARD));
+		small.add(new Fixture("3x3 midgame", BoardGeometry.STANDARD, 4, 0, 8));
+		small.add(new Fixture("3x3 endgame", BoardGeometry.STANDARD, 4, 0, 8, 2, 1, 7));
+		List<Fixture> large = new ArrayList<>();
+		large.add(new Fixture("4x4 K4 midgame", BoardGeometry.of(4, 4), 5, 10, 6, 9));
+		large.add(new Fixture("5x5 K4 midgame", BoardGeometry.of(5, 4), 12, 6, 13, 18));
+		large.add(new Fixture("8x8 K5 midgame", BoardGeometry.of(8, 5), 27, 28, 36, 35));
+		List<Fixture> all = new ArrayList<>(small);
+		all.addAll(large);
+
+		for(Fixture fixture : all) {
+			// One thread, so results do not depend on the core count
+			MinimaxEngine engine = new MinimaxEngine(fixture.geometry, MinimaxEngine.defaultDepth(fixture.geometry), 1 << 16);
+			benchmarks.add(new EngineBenchmark("getBestMove cold cache   " + fixture.name, () -> {
+				engine.getCache().clear();
+				return engine.getBestMove(fixture.position, fixture.side);
+			}));
+			benchmarks.add(new EngineBenchmark("getBestMove warm cache   " + fixture.name,
+				() -> engine.getBestMove(fixture.position, fixture.side)));
+		}
+
+		PerfectPlayTable table = PerfectPlayTable.get();
+		for(Fixture fixture : small) {
+			benchmarks.add(new EngineBenchmark("perfect-play lookup      " + fixture.name,
+				() -> table.getBestMove(fixture.position)));
+		}
+
+		for(Fixture fixture : all) {
+			MctsEngine mcts = new MctsEngine(fixture.geometry, 1);
+			mcts.setTimeBudgetMillis(0);
+			mcts.setIterationBudget(1000);
+			benchmarks.add(new EngineBenchmark("MCTS 1000 playouts       " + fixture.name,
+				() -> mcts.getBestMove(fixture.position, fixture.side)));
+		}
+
+		SplittableRandom random = new SplittableRandom(1);
+		for(Fixture fixture : all) {
+			Position position = fixture.position;
+			benchmarks.add(new EngineBenchmark("win check full scan      " + fixture.name,
+				() -> (position.hasWon(Position.X) ? 1 : 0) + (position.hasWon(Position.O) ? 2 : 0)));
+
+			// Place and undo every empty cell, as the search does
+			LineCounters counters = LineCounters.of(position);
+			long empty = position.emptyCells();
+			benchmarks.add(new EngineBenchmark("place+undo, all cells    " + fixture.name, () -> {
+				int wins = 0;
+				for(long free = empty; free != 0; free &= free - 1) {
+					int cell = Long.numberOfTrailingZeros(free);
+					if(counters.place(cell, fixture.side)) {
+						wins++;
+					}
+					counters.undo(cell, fixture.side);
+				}
+				return wins;
+			}));
+			benchmarks.add(new EngineBenchmark("board full check         " + fixture.name,
+				() -> position.isFull() ? 1 : 0));
+			benchmarks.add(new EngineBenchmark("getRandomMove            " + fixture.name,
+				() -> ComputerPlayer.getRandomMove(position, random)));
+		}
+		return benchmarks;
+	}
+
+	private void run()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		boolean allocation = threads instanceof com.sun.management.ThreadMXBean
+			&& ((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemorySupported();
+		if(allocation) {
+			((com.sun.management.ThreadMXBean)threads).setThreadAllocatedMemoryEnabled(true);
+		}
+
+		// Size batches to about a millisecond so the clock is not read per call
+		long batch = 1;
+		for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+			long[] counts = iterate(batch);
+			batch = Math.max(1, counts[0] * 1_000_000L / counts[1]);
+		}
+
+		double[] rates = new double[MEASURED_ITERATIONS];
+		long totalOps = 0;
+		long bytesBefore = allocation ? allocatedBytes(threads) : 0;
+		for(int i = 0; i < MEASURED_ITERATIONS; i++) {
+			long[] counts = iterate(batch);
+			rates[i] = counts[0] * 1e9 / counts[1];
+			totalOps += counts[0];
+		}
+		long bytes = allocation ? allocatedBytes(threads) - bytesBefore : -1;
+
+		double mean = 0;
+		for(double rate : rates) {
+			mean += rate / rates.length;
+		}
+		double variance = 0;
+		for(double rate : rates) {
+			variance += (rate - mean) * (rate - mean) / Math.max(1, rates.length - 1);
+		}
+		String perOp = bytes < 0 ? "n/a" : String.format("%.1f", (double)bytes / totalOps);
+		System.out.println(String.format("%-52s %14.1f %12.1f %12s", name, mean, Math.sqrt(variance), perOp));
+	}
+
+	// Runs whole batches until the iteration time is up; returns {ops, nanos}
+	private long[] iterate(long batch)
+	{
+		IntSupplier op = operation;
+		int result = 0;
+		long ops = 0;
+		long start = System.nanoTime();
+		long end = start + ITERATION_NANOS;
+		long now;
+		do {
+			for(long i = 0; i < batch; i++) {
+				result += op.getAsInt();
+			}
+			ops += batch;
+			now = System.nanoTime();
+		} while(now < end);
+		sink = result;
+		return new long[] {ops, now - start};
+	}
+
+	private static long allocatedBytes(ThreadMXBean threads)
+	{
+		long total = 0;
+		for(long bytes : ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			if(bytes > 0) {
+				total += bytes;
+			}
+		}
+		return total;
+	}
+
+	// A position reached by playing the given cells, X first
+	private static final class Fixture
+	{
+		final String name;
+		final BoardGeometry geometry;
+		final Position position;
+		final int side;
+
+		Fixture(String name, BoardGeometry geometry, int... moves)
+		{
+			this.name = name;
+			this.geometry = geometry;
+			this.position = new Position(geometry);
+			int toMove = Position.X;
+			for(int cell : moves) {
+				position.place(cell, toMove);
+				if(position.hasWon(toMove)) {
+					throw new IllegalArgumentException(name + " is already decided");
+				}
+				toMove = Position.opponent(toMove);
+			}
+			this.side = toMove;
+		}
+	}
+}
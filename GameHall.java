@@ -0,0 +1,338 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// The games a server is hosting, whatever carries the messages. Players
+// waiting for the same board are paired by a Matchmaker, the one who waited
+// longer playing X, or seated opposite a computer player if nobody near
+// their rating turns up. Each table wraps a GameModel, so moves go through
+// the same validation and win and draw rules as the window. A table is
+// locked while a move is applied and both players are told, so every
+// player sees the moves of a game in order; tables never lock each other.
+// Every table, and any other game published here, has a SpectatorFeed.
+// One ticker thread sends the feeds that changed to their watchers and
+// lets the matchmaker widen its search.
+final class GameHall
+{
+	// How often spectators are sent what changed and waiting players looked at
+	static final int TICK_MILLIS = 50;
+
+	private final Matchmaker matchmaker = new Matchmaker(this);
+	private final AtomicInteger nextGame = new AtomicInteger();
+
+	// Games that can be watched, by id, and the ones to publish next tick
+	private final ConcurrentSkipListMap<Integer, SpectatorFeed> feeds = new ConcurrentSkipListMap<>();
+	private final Queue<SpectatorFeed> changed = new ConcurrentLinkedQueue<>();
+	private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "hall-ticker");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Computer opponents; each thread keeps a single-threaded player per
+	// board, all of them listed for close()
+	private final ExecutorService computerMoves = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+		Thread thread = new Thread(runnable, "hall-computer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final ThreadLocal<Map<BoardGeometry, ComputerPlayer>> computers = ThreadLocal.withInitial(HashMap::new);
+	private final Queue<ComputerPlayer> computerPlayers = new ConcurrentLinkedQueue<>();
+
+	private final LongAdder gamesStarted = new LongAdder();
+	private final LongAdder gamesFinished = new LongAdder();
+	private final LongAdder moves = new LongAdder();
+	private final LongAdder spectatorFrames = new LongAdder();
+	private final LongAdder computerGames = new LongAdder();
+	// From joining to being seated, in microseconds
+	private final LatencyHistogram timeToMatch = new LatencyHistogram();
+
+	GameHall()
+	{
+		ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	// Queues a player for a game, or seats them at once; rating 0 means
+	// unrated. Returns the ticket to cancel() while they are waiting
+	Matchmaker.Ticket join(ServerSession session, BoardGeometry geometry, int rating, boolean acceptsComputer)
+	{
+		return matchmaker.join(session, geometry, rating == 0 ? Matchmaker.DEFAULT_RATING : rating, acceptsComputer);
+	}
+
+	// True if the player was waiting and no longer is
+	boolean cancel(Matchmaker.Ticket ticket)
+	{
+		return ticket != null && ticket.cancel();
+	}
+
+	// Two players the matchmaker has taken out of the queue
+	void seat(Matchmaker.Ticket x, Matchmaker.Ticket o)
+	{
+		long now = System.nanoTime();
+		timeToMatch.record((now - x.since) / 1000);
+		timeToMatch.record((now - o.since) / 1000);
+		start(new Table(nextGame.incrementAndGet(), x.geometry, x.session, o.session, null));
+	}
+
+	// A player nobody came for; the computer plays O at the given difficulty
+	void seatWithComputer(Matchmaker.Ticket x, String difficulty)
+	{
+		timeToMatch.record((System.nanoTime() - x.since) / 1000);
+		computerGames.increment();
+		start(new Table(nextGame.incrementAndGet(), x.geometry, x.session, null, difficulty));
+	}
+
+	private void start(Table table)
+	{
+		gamesStarted.increment();
+		// No move is accepted until both players have been told
+		synchronized(table) {
+			table.x.seat(table, Position.X);
+			table.x.send(WireProtocol.start(table.id, Position.X, table.model.getGeometry()));
+			if(table.o != null) {
+				table.o.seat(table, Position.O);
+				table.o.send(WireProtocol.start(table.id, Position.O, table.model.getGeometry()));
+			}
+		}
+		// Seated first, so a player who disconnected while being matched
+		// either sees the table and forfeits or is seen gone here
+		if(table.x.isGone()) {
+			table.forfeit(Position.X);
+		}
+		if(table.o != null && table.o.isGone()) {
+			table.forfeit(Position.O);
+		}
+	}
+
+	// Makes a game played elsewhere, such as a match in the window, watchable.
+	// Call on the thread that drives the model
+	SpectatorFeed publish(GameModel model)
+	{
+		return register(nextGame.incrementAndGet(), model);
+	}
+
+	private SpectatorFeed register(int id, GameModel model)
+	{
+		SpectatorFeed feed = new SpectatorFeed(this, id, model);
+		model.addListener(feed);
+		feeds.put(id, feed);
+		return feed;
+	}
+
+	// Adds a spectator to a game, or to the newest one for id 0; null if
+	// there is no such game
+	SpectatorFeed watch(ServerSession session, int id)
+	{
+		SpectatorFeed feed;
+		if(id == 0) {
+			Map.Entry<Integer, SpectatorFeed> newest = feeds.lastEntry();
+			feed = newest == null ? null : newest.getValue();
+		} else {
+			feed = feeds.get(id);
+		}
+		if(feed != null) {
+			feed.addWatcher(session);
+		}
+		return feed;
+	}
+
+	void schedule(SpectatorFeed feed)
+	{
+		changed.add(feed);
+	}
+
+	// A finished game's feed, after its last tick
+	void retire(SpectatorFeed feed)
+	{
+		feeds.remove(feed.id, feed);
+	}
+
+	void countSpectatorFrames(long count)
+	{
+		spectatorFrames.add(count);
+	}
+
+	// A failure is logged and skipped, so the ticker keeps going
+	private void tick()
+	{
+		for(SpectatorFeed feed; (feed = changed.poll()) != null; ) {
+			try {
+				feed.publish();
+			} catch(RuntimeException e) {
+				System.err.println("Spectator feed " + feed.id + " failed: " + e);
+			}
+		}
+		try {
+			matchmaker.sweep();
+		} catch(RuntimeException e) {
+			System.err.println("Matchmaker sweep failed: " + e);
+		}
+	}
+
+	private ComputerPlayer computerFor(BoardGeometry geometry)
+	{
+		return computers.get().computeIfAbsent(geometry, this::newComputer);
+	}
+
+	// Single-threaded engines; the parallelism comes from the hall-computer
+	// threads
+	private ComputerPlayer newComputer(BoardGeometry geometry)
+	{
+		MctsEngine mcts = new MctsEngine(geometry, 1);
+		mcts.setTimeBudgetMillis(750);
+		ComputerPlayer player = new ComputerPlayer(
+			new MinimaxEngine(geometry, MinimaxEngine.defaultDepth(geometry), 1 << 16), mcts);
+		computerPlayers.add(player);
+		return player;
+	}
+
+	void close()
+	{
+		ticker.shutdownNow();
+		computerMoves.shutdownNow();
+		for(ComputerPlayer player; (player = computerPlayers.poll()) != null; ) {
+			player.shutdown();
+		}
+	}
+
+	long getGamesStarted()
+	{
+		return gamesStarted.sum();
+	}
+
+	long getGamesFinished()
+	{
+		return gamesFinished.sum();
+	}
+
+	long getMoves()
+	{
+		return moves.sum();
+	}
+
+	long getSpectatorFrames()
+	{
+		return spectatorFrames.sum();
+	}
+
+	int getWatchableGames()
+	{
+		return feeds.size();
+	}
+
+	long getComputerGames()
+	{
+		return computerGames.sum();
+	}
+
+	LatencyHistogram getTimeToMatch()
+	{
+		return timeToMatch;
+	}
+
+	// One game between two connected players, or a player and the computer
+	final class Table
+	{
+		final int id;
+		private final GameModel model;
+		private final SpectatorFeed feed;
+		private final ServerSession x;
+		private final ServerSession o; // Null when the computer plays O
+		private final String computerLevel;
+		private boolean forfeited = false;
+
+		Table(int id, BoardGeometry geometry, ServerSession x, ServerSession o, String computerLevel)
+		{
+			this.id = id;
+			this.model = new GameModel(geometry);
+			this.feed = register(id, model);
+			this.x = x;
+			this.o = o;
+			this.computerLevel = computerLevel;
+		}
+
+		synchronized boolean isOver()
+		{
+			return forfeited || model.isGameOver();
+		}
+
+		synchronized void play(int side, int cell)
+		{
+			ServerSession player = side == Position.X ? x : o;
+			if(isOver()) {
+				send(player, WireProtocol.error(WireProtocol.GAME_OVER));
+				return;
+			}
+			if(side != model.getSideToMove()) {
+				send(player, WireProtocol.error(WireProtocol.NOT_YOUR_TURN));
+				return;
+			}
+			try {
+				model.play(cell);
+			} catch(IllegalArgumentException e) {
+				send(player, WireProtocol.error(WireProtocol.BAD_CELL));
+				return;
+			}
+			moves.increment();
+			tellBoth(WireProtocol.move(id, cell, side));
+			if(model.isGameOver()) {
+				tellBoth(WireProtocol.end(id, model.getWinner(), false));
+				gamesFinished.increment();
+			} else if(o == null) {
+				computerMoves.execute(this::playComputer);
+			}
+		}
+
+		// Searches without the lock, so the player can still leave meanwhile
+		private void playComputer()
+		{
+			Position position;
+			synchronized(this) {
+				if(isOver()) {
+					return;
+				}
+				position = model.getPosition();
+			}
+			play(Position.O, computerFor(position.getGeometry()).getMove(computerLevel, position, Position.O));
+		}
+
+		// The player on this side left; the other one wins
+		synchronized void forfeit(int side)
+		{
+			if(isOver()) {
+				return;
+			}
+			forfeited = true;
+			feed.forfeit(Position.opponent(side));
+			tellBoth(WireProtocol.end(id, Position.opponent(side), true));
+			gamesFinished.increment();
+		}
+
+		// Tells the player on this side where every mark is
+		synchronized void sendBoard(int side)
+		{
+			send(side == Position.X ? x : o, WireProtocol.board(id, model.getPosition()));
+		}
+
+		private void tellBoth(byte[] frame)
+		{
+			x.send(frame);
+			send(o, frame);
+		}
+
+		private void send(ServerSession player, byte[] frame)
+		{
+			if(player != null) {
+				player.send(frame);
+			}
+		}
+	}
+}
@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Append-only log of finished games in one file. The file grows in large
+// pre-allocated chunks that are memory-mapped, so appending a game is a few
+// buffer puts with no system call. Games become durable in groups: flush()
+// forces the mapped pages to disk and only then moves the committed end in
+// the header, either every commitEvery games or every flushMillis,
+// whichever comes first. After a crash, readers stop at the last committed
+// end and anything written after it is ignored. Safe to share between
+// threads; appends are serialised.
+//
+// Layout, all little-endian:
+//   header  magic, version, chunk size, committed end, committed games
+//   entry   size, win length, winner (-1 for a draw), move count,
+//           end time in epoch millis, then one byte per move
+// An entry never crosses a chunk boundary; a zero size byte pads the rest of
+// a chunk.
+final class GameJournal implements AutoCloseable
+{
+	static final int MAGIC = 0x4A545454; // "TTTJ"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 64;
+	static final int ENTRY_HEADER_BYTES = 12;
+	static final int COMMITTED_END = 16;
+	static final int COMMITTED_GAMES = 24;
+	static final int DEFAULT_CHUNK_BYTES = 16 << 20;
+
+	private final FileChannel channel;
+	private final int chunkBytes;
+	private final int commitEvery;
+	private final MappedByteBuffer header;
+	private final ScheduledExecutorService flusher;
+
+	private MappedByteBuffer chunk;
+	private long chunkStart;
+	private long end; // Next free byte in the file
+	private long games;
+	private long committedEnd;
+	private int uncommitted = 0;
+	private boolean closed = false;
+
+	// Opens a journal, creating it if needed, and appends after its last
+	// committed game. flushMillis of 0 leaves flushing to commitEvery and close().
+	GameJournal(Path file, int commitEvery, long flushMillis) throws IOException
+	{
+		this(file, DEFAULT_CHUNK_BYTES, commitEvery, flushMillis);
+	}
+
+	GameJournal(Path file, int chunkBytes, int commitEvery, long flushMillis) throws IOException
+	{
+		if(chunkBytes < HEADER_BYTES + ENTRY_HEADER_BYTES + 64 || commitEvery < 1 || flushMillis < 0) {
+			throw new IllegalArgumentException("Bad journal settings");
+		}
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.commitEvery = commitEvery;
+		try {
+			if(channel.size() == 0) {
+				this.chunkBytes = chunkBytes;
+				this.header = map(0, HEADER_BYTES);
+				header.putInt(0, MAGIC);
+				header.putInt(4, VERSION);
+				header.putInt(8, chunkBytes);
+				header.putLong(COMMITTED_END, HEADER_BYTES);
+				header.putLong(COMMITTED_GAMES, 0);
+				header.force();
+			} else {
+				this.header = map(0, HEADER_BYTES);
+				checkHeader(header, file);
+				this.chunkBytes = header.getInt(8); // An existing journal keeps its chunk size
+			}
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		end = header.getLong(COMMITTED_END);
+		committedEnd = end;
+		games = header.getLong(COMMITTED_GAMES);
+		chunkStart = end / this.chunkBytes * this.chunkBytes;
+		chunk = map(chunkStart, this.chunkBytes);
+
+		if(flushMillis > 0) {
+			flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "journal-flush");
+				thread.setDaemon(true);
+				return thread;
+			});
+			flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+		} else {
+			flusher = null;
+		}
+	}
+
+	static void checkHeader(ByteBuffer header, Path file) throws IOException
+	{
+		if(header.getInt(0) != MAGIC) {
+			throw new IOException(file + " is not a game journal");
+		}
+		if(header.getInt(4) != VERSION) {
+			throw new IOException(file + " is journal version " + header.getInt(4) + ", expected " + VERSION);
+		}
+	}
+
+	// Maps a region read-write; mapping past the end of the file grows it
+	private MappedByteBuffer map(long position, int length) throws IOException
+	{
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, length);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	// Appends a finished game; winner is Position.X, Position.O or -1
+	synchronized void append(BoardGeometry geometry, int winner, int[] moves, int count) throws IOException
+	{
+		if(closed) {
+			throw new IllegalStateException("The journal is closed");
+		}
+		if(count < 0 || count > geometry.getCellCount()) {
+			throw new IllegalArgumentException("A game has 0 to " + geometry.getCellCount() + " moves, not " + count);
+		}
+		int length = ENTRY_HEADER_BYTES + count;
+		int offset = (int)(end - chunkStart);
+		if(offset + length > chunkBytes) {
+			if(offset < chunkBytes) {
+				chunk.put(offset, (byte)0);
+			}
+			chunk.force(); // The next flush only forces the new chunk
+			chunkStart += chunkBytes;
+			chunk = map(chunkStart, chunkBytes);
+			end = chunkStart;
+			offset = 0;
+		}
+		chunk.put(offset, (byte)geometry.getSize());
+		chunk.put(offset + 1, (byte)geometry.getWinLength());
+		chunk.put(offset + 2, (byte)winner);
+		chunk.put(offset + 3, (byte)count);
+		chunk.putLong(offset + 4, System.currentTimeMillis());
+		for(int i = 0; i < count; i++) {
+			chunk.put(offset + ENTRY_HEADER_BYTES + i, (byte)moves[i]);
+		}
+		end += length;
+		games++;
+		if(++uncommitted >= commitEvery) {
+			flush();
+		}
+	}
+
+	void append(GameModel model) throws IOException
+	{
+		append(model.getGeometry(), model.getWinner(), model.getMoves(), model.getMoveCount());
+	}
+
+	// Group commit: forces everything appended so far, then publishes it
+	synchronized void flush() throws IOException
+	{
+		if(closed || end == committedEnd) {
+			return;
+		}
+		chunk.force();
+		header.putLong(COMMITTED_END, end);
+		header.putLong(COMMITTED_GAMES, games);
+		header.force();
+		committedEnd = end;
+		uncommitted = 0;
+	}
+
+	private void flushQuietly()
+	{
+		try {
+			flush();
+		} catch(IOException e) {
+			System.err.println("Journal flush failed: " + e.getMessage());
+		}
+	}
+
+	// Games appended, committed or not
+	synchronized long getGameCount()
+	{
+		return games;
+	}
+
+	public synchronized void close() throws IOException
+	{
+		if(closed) {
+			return;
+		}
+		if(flusher != null) {
+			flusher.shutdownNow();
+		}
+		try {
+			flush();
+		} finally {
+			closed = true;
+			channel.close();
+		}
+	}
+}
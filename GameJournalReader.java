@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Reads a GameJournal front to back, up to its last committed game:
+//   java GameJournalReader <journal> [--list]
+// A cursor over read-only mappings of the file, one chunk at a time; next()
+// steps to the following game and the getters read it in place, so going
+// through millions of games allocates next to nothing. The file can be read
+// while a GameJournal is still appending to it; games committed after the
+// reader was opened are not seen.
+final class GameJournalReader implements AutoCloseable
+{
+	private final FileChannel channel;
+	private final int chunkBytes;
+	private final long committedEnd;
+	private final long committedGames;
+
+	private MappedByteBuffer chunk;
+	private long chunkStart;
+	private long position = GameJournal.HEADER_BYTES;
+	private int entry = -1; // Offset of the current game in the chunk
+
+	GameJournalReader(Path file) throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			if(channel.size() < GameJournal.HEADER_BYTES) {
+				throw new IOException(file + " is not a game journal");
+			}
+			MappedByteBuffer header = map(0, GameJournal.HEADER_BYTES);
+			GameJournal.checkHeader(header, file);
+			chunkBytes = header.getInt(8);
+			committedEnd = header.getLong(GameJournal.COMMITTED_END);
+			committedGames = header.getLong(GameJournal.COMMITTED_GAMES);
+			chunkStart = 0;
+			chunk = map(0, (int)Math.min(chunkBytes, committedEnd));
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private MappedByteBuffer map(long start, int length) throws IOException
+	{
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	// Committed games in the journal when it was opened
+	long getGameCount()
+	{
+		return committedGames;
+	}
+
+	// Moves to the next game; false once the committed games are used up
+	boolean next() throws IOException
+	{
+		if(entry >= 0) {
+			position += GameJournal.ENTRY_HEADER_BYTES + getMoveCount();
+		}
+		int offset = (int)(position - chunkStart);
+		if(position < committedEnd && (offset >= chunkBytes || chunk.get(offset) == 0)) {
+			// Padding: the rest of this chunk is unused
+			chunkStart += chunkBytes;
+			position = chunkStart;
+			offset = 0;
+			if(position < committedEnd) {
+				chunk = map(chunkStart, (int)Math.min(chunkBytes, committedEnd - chunkStart));
+			}
+		}
+		if(position >= committedEnd) {
+			entry = -1;
+			return false;
+		}
+		entry = offset;
+		return true;
+	}
+
+	int getSize()
+	{
+		return chunk.get(entry);
+	}
+
+	int getWinLength()
+	{
+		return chunk.get(entry + 1);
+	}
+
+	BoardGeometry getGeometry()
+	{
+		return BoardGeometry.of(getSize(), getWinLength());
+	}
+
+	// Position.X, Position.O or -1 for a draw
+	int getWinner()
+	{
+		return chunk.get(entry + 2);
+	}
+
+	int getMoveCount()
+	{
+		return chunk.get(entry + 3);
+	}
+
+	// Cell of move n of the current game, counting from 0
+	int getMove(int n)
+	{
+		if(n < 0 || n >= getMoveCount()) {
+			throw new IndexOutOfBoundsException("Move " + n + " of " + getMoveCount());
+		}
+		return chunk.get(entry + GameJournal.ENTRY_HEADER_BYTES + n);
+	}
+
+	int[] getMoves()
+	{
+		int[] moves = new int[getMoveCount()];
+		for(int i = 0; i < moves.length; i++) {
+			moves[i] = chunk.get(entry + GameJournal.ENTRY_HEADER_BYTES + i);
+		}
+		return moves;
+	}
+
+	// When the game finished, in epoch milliseconds
+	long getEndTime()
+	{
+		return chunk.getLong(entry + 4);
+	}
+
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--list"))) {
+			System.err.println("Usage: java GameJournalReader <journal> [--list]");
+			System.exit(2);
+		}
+		boolean list = args.length == 2;
+		long start = System.nanoTime();
+		long games = 0, moves = 0, xWins = 0, oWins = 0, draws = 0;
+		try(GameJournalReader reader = new GameJournalReader(Paths.get(args[0]))) {
+			while(reader.next()) {
+				games++;
+				moves += reader.getMoveCount();
+				int winner = reader.getWinner();
+				if(winner == Position.X) {
+					xWins++;
+				} else if(winner == Position.O) {
+					oWins++;
+				} else {
+					draws++;
+				}
+				if(list) {
+					System.out.println(reader.getSize() + "x" + reader.getSize() + " K" + reader.getWinLength() + " "
+						+ (winner == -1 ? "draw" : winner == Position.X ? "X won" : "O won") + " "
+						+ java.util.Arrays.toString(reader.getMoves()));
+				}
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%d games: X won %d, O won %d, %d draws, %.2f moves per game",
+			games, xWins, oWins, draws, games == 0 ? 0 : (double)moves / games));
+		System.out.println(String.format("Read in %.2f s, %.0f games/s", seconds, games / seconds));
+	}
+}
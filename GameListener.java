@@ -0,0 +1,13 @@
+// Callbacks from a GameModel. They run on the thread that changed the model,
+// after the model's own state is already up to date.
+interface GameListener
+{
+	// A mark was placed; the turn has already passed unless the game ended
+	default void movePlayed(GameModel game, int cell, int side) {}
+
+	// The game finished; winner is Position.X, Position.O or -1 for a draw
+	default void gameEnded(GameModel game, int winner) {}
+
+	// The board was cleared for a new match or the next round
+	default void boardCleared(GameModel game) {}
+}
@@ -0,0 +1,268 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// The game without a window: board, turn, move history, result and the
+// round scores of a match. Nothing here touches AWT, so games can be played
+// headless as fast as moves can be made. A match is one or more rounds; a
+// single game is a match of one round. Not thread-safe: drive a model from
+// one thread and hand Position copies to anything running elsewhere.
+final class GameModel
+{
+	private final BoardGeometry geometry;
+	private final Position position;
+	private final LineCounters counters;
+	private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+
+	// Current game
+	private final int[] moves;
+	private int moveCount = 0;
+	private int sideToMove = Position.X;
+	private boolean gameOver = false;
+
+	// Match state; per-round records are filled in as rounds finish
+	private int totalRounds = 1;
+	private int currentRound = 1;
+	private int roundsPlayed = 0;
+	private int[] roundWinners = new int[1];
+	private final GameRecordList roundMoves;
+	private int xWins = 0;
+	private int oWins = 0;
+	private int draws = 0;
+
+	GameModel(BoardGeometry geometry)
+	{
+		this(geometry, 1);
+	}
+
+	GameModel(BoardGeometry geometry, int rounds)
+	{
+		this.geometry = geometry;
+		this.position = new Position(geometry);
+		this.counters = new LineCounters(geometry);
+		this.moves = new int[geometry.getCellCount()];
+		this.roundMoves = new GameRecordList(geometry, rounds);
+		resetMatch(rounds);
+	}
+
+	void addListener(GameListener listener)
+	{
+		listeners.add(listener);
+	}
+
+	void removeListener(GameListener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	// Clears the scores and starts round 1 of a new match
+	void startMatch(int rounds)
+	{
+		resetMatch(rounds);
+		for(GameListener listener : listeners) {
+			listener.boardCleared(this);
+		}
+	}
+
+	// Clears the board for the next round, keeping the scores
+	void nextRound()
+	{
+		if(!gameOver) {
+			throw new IllegalStateException("Round " + currentRound + " is still in progress");
+		}
+		if(isMatchOver()) {
+			throw new IllegalStateException("All " + totalRounds + " rounds have been played");
+		}
+		currentRound++;
+		clearBoard();
+		for(GameListener listener : listeners) {
+			listener.boardCleared(this);
+		}
+	}
+
+	// Places a mark for the side to move
+	void play(int cell)
+	{
+		if(gameOver) {
+			throw new IllegalStateException("The game is over");
+		}
+		if(cell < 0 || cell >= moves.length || !position.isEmpty(cell)) {
+			throw new IllegalArgumentException("Cell " + cell + " is not available");
+		}
+
+		int side = sideToMove;
+		position.place(cell, side);
+		boolean won = counters.place(cell, side);
+		moves[moveCount++] = cell;
+
+		int winner = won ? side : -1;
+		if(won || counters.isFull()) {
+			gameOver = true;
+			recordRound(winner);
+		} else {
+			sideToMove = Position.opponent(side);
+		}
+
+		for(GameListener listener : listeners) {
+			listener.movePlayed(this, cell, side);
+		}
+		if(gameOver) {
+			for(GameListener listener : listeners) {
+				listener.gameEnded(this, winner);
+			}
+		}
+	}
+
+	private void resetMatch(int rounds)
+	{
+		if(rounds < 1) {
+			throw new IllegalArgumentException("A match needs at least one round");
+		}
+		totalRounds = rounds;
+		currentRound = 1;
+		roundsPlayed = 0;
+		if(roundWinners.length != rounds) {
+			roundWinners = new int[rounds];
+		}
+		roundMoves.clear();
+		xWins = 0;
+		oWins = 0;
+		draws = 0;
+		clearBoard();
+	}
+
+	private void clearBoard()
+	{
+		position.clearAll();
+		counters.reset();
+		moveCount = 0;
+		sideToMove = Position.X;
+		gameOver = false;
+	}
+
+	private void recordRound(int winner)
+	{
+		roundWinners[roundsPlayed] = winner;
+		roundMoves.add(moves, moveCount);
+		roundsPlayed++;
+		if(winner == Position.X) {
+			xWins++;
+		} else if(winner == Position.O) {
+			oWins++;
+		} else {
+			draws++;
+		}
+	}
+
+	BoardGeometry getGeometry()
+	{
+		return geometry;
+	}
+
+	// Position.X, Position.O or -1 for an empty cell
+	int getCell(int cell)
+	{
+		long bit = 1L << cell;
+		if((position.bits(Position.X) & bit) != 0) return Position.X;
+		if((position.bits(Position.O) & bit) != 0) return Position.O;
+		return -1;
+	}
+
+	// A copy of the board, safe to hand to a search on another thread
+	Position getPosition()
+	{
+		return position.copy();
+	}
+
+	int getSideToMove()
+	{
+		return sideToMove;
+	}
+
+	int getMoveCount()
+	{
+		return moveCount;
+	}
+
+	// Cell of the n-th move of the current game, counting from 0
+	int getMove(int n)
+	{
+		if(n < 0 || n >= moveCount) {
+			throw new IndexOutOfBoundsException("Move " + n + " of " + moveCount);
+		}
+		return moves[n];
+	}
+
+	int[] getMoves()
+	{
+		return java.util.Arrays.copyOf(moves, moveCount);
+	}
+
+	boolean isGameOver()
+	{
+		return gameOver;
+	}
+
+	// Side that completed a line, or -1
+	int getWinner()
+	{
+		return counters.getWinner();
+	}
+
+	// Index into the geometry's line tables of the completed line, or -1
+	int getWinningLine()
+	{
+		return counters.getWinningLine();
+	}
+
+	boolean isDraw()
+	{
+		return counters.isDraw();
+	}
+
+	int getTotalRounds()
+	{
+		return totalRounds;
+	}
+
+	int getCurrentRound()
+	{
+		return currentRound;
+	}
+
+	int getRoundsPlayed()
+	{
+		return roundsPlayed;
+	}
+
+	boolean isMatchOver()
+	{
+		return roundsPlayed >= totalRounds;
+	}
+
+	// Winner of a finished round (counting from 0), or -1 for a draw
+	int getRoundWinner(int round)
+	{
+		if(round < 0 || round >= roundsPlayed) {
+			throw new IndexOutOfBoundsException("Round " + round + " of " + roundsPlayed);
+		}
+		return roundWinners[round];
+	}
+
+	int[] getRoundMoves(int round)
+	{
+		if(round < 0 || round >= roundsPlayed) {
+			throw new IndexOutOfBoundsException("Round " + round + " of " + roundsPlayed);
+		}
+		return roundMoves.moves(round);
+	}
+
+	int getWins(int side)
+	{
+		return side == Position.X ? xWins : oWins;
+	}
+
+	int getDraws()
+	{
+		return draws;
+	}
+}
@@ -0,0 +1,156 @@
+// Games stored as packed move lists, for keeping large numbers of them in
+// memory. A record is the move count followed by one cell index per move,
+// each field only as wide as the geometry needs: a 3x3 game is 4 bits of
+// length and nine 4-bit cells, so it takes a single long, while an 8x8 game
+// takes seven. Records sit back to back in one long array; text is only
+// produced by the caller, when something needs to show a game.
+final class GameRecordList
+{
+	private final BoardGeometry geometry;
+	private final int lengthBits;
+	private final int cellBits;
+	private final int stride; // Longs per record
+
+	private long[] words;
+	private int size = 0;
+
+	GameRecordList(BoardGeometry geometry)
+	{
+		this(geometry, 16);
+	}
+
+	GameRecordList(BoardGeometry geometry, int initialCapacity)
+	{
+		int cells = geometry.getCellCount();
+		this.geometry = geometry;
+		this.lengthBits = bitsFor(cells);
+		this.cellBits = bitsFor(cells - 1);
+		this.stride = (lengthBits + cells * cellBits + 63) / 64;
+		this.words = new long[Math.max(1, initialCapacity) * stride];
+	}
+
+	// Bits needed to hold every value from 0 to max
+	private static int bitsFor(int max)
+	{
+		return 64 - Long.numberOfLeadingZeros(Math.max(1, max));
+	}
+
+	BoardGeometry getGeometry()
+	{
+		return geometry;
+	}
+
+	// Longs used by each record
+	int getStride()
+	{
+		return stride;
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	void clear()
+	{
+		size = 0; // add() zeroes each slot before writing it
+	}
+
+	// Appends the first count moves of a game
+	void add(int[] moves, int count)
+	{
+		if(count < 0 || count > geometry.getCellCount()) {
+			throw new IllegalArgumentException("A game has 0 to " + geometry.getCellCount() + " moves, not " + count);
+		}
+		if((size + 1) * stride > words.length) {
+			words = java.util.Arrays.copyOf(words, Math.max(words.length * 2, (size + 1) * stride));
+		}
+		int base = size * stride;
+		for(int i = base; i < base + stride; i++) {
+			words[i] = 0;
+		}
+		long bit = (long)base * 64;
+		write(bit, lengthBits, count);
+		bit += lengthBits;
+		for(int i = 0; i < count; i++) {
+			write(bit, cellBits, moves[i]);
+			bit += cellBits;
+		}
+		size++;
+	}
+
+	void addAll(GameRecordList other)
+	{
+		if(other.geometry != geometry) {
+			throw new IllegalArgumentException("Records are for " + other.geometry + ", not " + geometry);
+		}
+		int needed = (size + other.size) * stride;
+		if(needed > words.length) {
+			words = java.util.Arrays.copyOf(words, Math.max(words.length * 2, needed));
+		}
+		System.arraycopy(other.words, 0, words, size * stride, other.size * stride);
+		size += other.size;
+	}
+
+	// Number of moves in a record
+	int length(int record)
+	{
+		checkRecord(record);
+		return (int)read((long)record * stride * 64, lengthBits);
+	}
+
+	// Cell of move n of a record, counting from 0
+	int move(int record, int n)
+	{
+		if(n < 0 || n >= length(record)) {
+			throw new IndexOutOfBoundsException("Move " + n + " of " + length(record));
+		}
+		return (int)read((long)record * stride * 64 + lengthBits + (long)n * cellBits, cellBits);
+	}
+
+	int[] moves(int record)
+	{
+		int[] moves = new int[length(record)];
+		long bit = (long)record * stride * 64 + lengthBits;
+		for(int i = 0; i < moves.length; i++) {
+			moves[i] = (int)read(bit, cellBits);
+			bit += cellBits;
+		}
+		return moves;
+	}
+
+	// Bytes held by the backing array
+	long getFootprintBytes()
+	{
+		return (long)words.length * 8;
+	}
+
+	private void checkRecord(int record)
+	{
+		if(record < 0 || record >= size) {
+			throw new IndexOutOfBoundsException("Record " + record + " of " + size);
+		}
+	}
+
+	// A field may straddle two longs
+	private void write(long bit, int width, long value)
+	{
+		int word = (int)(bit >>> 6);
+		int shift = (int)(bit & 63);
+		words[word] |= value << shift;
+		if(shift + width > 64) {
+			words[word + 1] |= value >>> (64 - shift);
+		}
+	}
+
+	private long read(long bit, int width)
+	{
+		int word = (int)(bit >>> 6);
+		int shift = (int)(bit & 63);
+		long value = words[word] >>> shift;
+		if(shift + width > 64) {
+			value |= words[word + 1] << (64 - shift);
+		}
+		return value & ((1L << width) - 1);
+	}
+}
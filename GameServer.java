@@ -0,0 +1,41 @@
+// A multiplayer server speaking WireProtocol, whatever its threading model
+interface GameServer extends AutoCloseable
+{
+	void start() throws java.io.IOException;
+
+	int getPort();
+
+	GameHall getHall();
+
+	int getConnectionCount();
+
+	// Short description for logs, such as "2 selector threads"
+	String describe();
+
+	// Stops accepting, closes every connection and the hall
+	void close() throws java.io.IOException;
+
+	// Prints load figures every ten seconds until the process ends
+	default void report() throws InterruptedException
+	{
+		GameHall hall = getHall();
+		long lastMoves = 0;
+		long lastFrames = 0;
+		long lastTime = System.nanoTime();
+		while(true) {
+			Thread.sleep(10000);
+			long moves = hall.getMoves();
+			long frames = hall.getSpectatorFrames();
+			long time = System.nanoTime();
+			LatencyHistogram wait = hall.getTimeToMatch();
+			System.out.println(String.format("%d connections, %d games in progress, %d finished (%d against the computer), "
+				+ "%.0f moves/s, %.0f spectator frames/s, time to match p50 %.1f ms p99 %.1f ms", getConnectionCount(),
+				hall.getGamesStarted() - hall.getGamesFinished(), hall.getGamesFinished(), hall.getComputerGames(),
+				(moves - lastMoves) * 1e9 / (time - lastTime), (frames - lastFrames) * 1e9 / (time - lastTime),
+				wait.percentile(50) / 1000.0, wait.percentile(99) / 1000.0));
+			lastMoves = moves;
+			lastFrames = frames;
+			lastTime = time;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+import java.awt.*;
+import java.awt.event.*;
+
+// Move history of a match, shown a page of rounds at a time. Only the page
+// on screen is turned into text, straight from the model's packed round
+// records, so opening the viewer and paging through it costs the same after
+// ten rounds as after ten thousand.
+final class HistoryViewer extends Dialog implements ActionListener
+{
+	private static final long serialVersionUID = 1L;
+
+	static final int ROUNDS_PER_PAGE = 20;
+
+	private final GameModel model;
+	private final String xName;
+	private final String oName;
+	private final int pages;
+	private int page = 0;
+
+	private final TextArea pageText = new TextArea("", 24, 60, TextArea.SCROLLBARS_VERTICAL_ONLY);
+	private final Label pageLabel = new Label("", Label.CENTER);
+	private final Button firstButton = new Button("<< First");
+	private final Button previousButton = new Button("< Previous");
+	private final Button nextButton = new Button("Next >");
+	private final Button lastButton = new Button("Last >>");
+	private final Button closeButton = new Button("Close");
+
+	HistoryViewer(Frame owner, GameModel model, String xName, String oName)
+	{
+		super(owner, "Competition Moves Record", true);
+		this.model = model;
+		this.xName = xName;
+		this.oName = oName;
+		this.pages = pageCount(model.getRoundsPlayed());
+
+		setLayout(new BorderLayout(5, 5));
+		Label header = new Label(xName + " (X) vs " + oName + " (O)   " + formatStandings(model, xName, oName), Label.CENTER);
+		header.setFont(new Font("Arial", Font.BOLD, 13));
+		add(header, BorderLayout.NORTH);
+
+		pageText.setEditable(false);
+		pageText.setFont(new Font("Monospaced", Font.PLAIN, 13));
+		add(pageText, BorderLayout.CENTER);
+
+		Panel controls = new Panel(new FlowLayout(FlowLayout.CENTER));
+		for(Button button : new Button[] {firstButton, previousButton, nextButton, lastButton, closeButton}) {
+			button.addActionListener(this);
+		}
+		controls.add(firstButton);
+		controls.add(previousButton);
+		controls.add(pageLabel);
+		controls.add(nextButton);
+		controls.add(lastButton);
+		controls.add(closeButton);
+		add(controls, BorderLayout.SOUTH);
+
+		addWindowListener(new WindowAdapter() {
+			public void windowClosing(WindowEvent e) {
+				dispose();
+			}
+		});
+
+		showPage(0);
+		pack();
+		setLocationRelativeTo(owner);
+	}
+
+	static int pageCount(int rounds)
+	{
+		return Math.max(1, (rounds + ROUNDS_PER_PAGE - 1) / ROUNDS_PER_PAGE);
+	}
+
+	public void actionPerformed(ActionEvent e)
+	{
+		if(e.getSource() == firstButton) {
+			showPage(0);
+		} else if(e.getSource() == previousButton) {
+			showPage(page - 1);
+		} else if(e.getSource() == nextButton) {
+			showPage(page + 1);
+		} else if(e.getSource() == lastButton) {
+			showPage(pages - 1);
+		} else if(e.getSource() == closeButton) {
+			dispose();
+		}
+	}
+
+	private void showPage(int newPage)
+	{
+		page = Math.max(0, Math.min(pages - 1, newPage));
+		pageText.setText(formatPage(model, xName, oName, page));
+		pageText.setCaretPosition(0);
+		pageLabel.setText("Page " + (page + 1) + " of " + pages);
+		firstButton.setEnabled(page > 0);
+		previousButton.setEnabled(page > 0);
+		nextButton.setEnabled(page < pages - 1);
+		lastButton.setEnabled(page < pages - 1);
+	}
+
+	// Text for one page of finished rounds, counting pages from 0
+	static String formatPage(GameModel model, String xName, String oName, int page)
+	{
+		int size = model.getGeometry().getSize();
+		int first = page * ROUNDS_PER_PAGE;
+		int last = Math.min(model.getRoundsPlayed(), first + ROUNDS_PER_PAGE);
+		StringBuilder text = new StringBuilder(4096);
+		for(int round = first; round < last; round++) {
+			text.append("ROUND ").append(round + 1).append(":\n");
+			text.append("----------------------------------------\n");
+			int[] moves = model.getRoundMoves(round);
+			for(int n = 0; n < moves.length; n++) {
+				text.append(formatMove(n, moves[n], size, xName, oName)).append("\n");
+			}
+			text.append("\n").append(formatRoundResult(model, round, xName, oName)).append("\n\n");
+		}
+		if(last == model.getRoundsPlayed()) {
+			text.append(model.isMatchOver() ? "Competition Complete!"
+				: "Completed: " + model.getRoundsPlayed() + " of " + model.getTotalRounds() + " rounds");
+		}
+		return text.toString();
+	}
+
+	// "Move n: Name (X) at Row r, Column c" for move n of a game, counting from 0
+	static String formatMove(int n, int cell, int size, String xName, String oName)
+	{
+		boolean x = n % 2 == 0;
+		return "Move " + (n + 1) + ": " + (x ? xName + " (X)" : oName + " (O)")
+			+ " at Row " + (cell / size + 1) + ", Column " + (cell % size + 1);
+	}
+
+	// Result line for a finished round, counting from 0
+	static String formatRoundResult(GameModel model, int round, String xName, String oName)
+	{
+		int winner = model.getRoundWinner(round);
+		return "Round " + (round + 1) + ": " + (winner == -1 ? "Draw" : (winner == Position.X ? xName : oName) + " wins");
+	}
+
+	static String formatStandings(GameModel model, String xName, String oName)
+	{
+		return xName + ": " + model.getWins(Position.X) + " wins, " + oName + ": " + model.getWins(Position.O)
+			+ " wins, Draws: " + model.getDraws();
+	}
+}
@@ -0,0 +1,85 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counts of non-negative values (latencies in microseconds, say) in
+// log-linear buckets: exact below 64, then 32 buckets per power of two, so
+// any percentile is within about 3% of the true value. Recording is one
+// atomic increment and never allocates, so any number of threads may
+// record into the same histogram.
+final class LatencyHistogram
+{
+	private static final int LINEAR = 64;
+	private static final int SUB_BUCKETS = 32;
+	private static final int SUB_BITS = 5;
+	private static final int BUCKETS = LINEAR + (63 - 6) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	void record(long value)
+	{
+		counts.incrementAndGet(bucket(Math.max(0, value)));
+	}
+
+	private static int bucket(long value)
+	{
+		if(value < LINEAR) {
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		return LINEAR + (exponent - 6) * SUB_BUCKETS + (int)((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+	}
+
+	// Largest value that falls in a bucket
+	private static long highest(int bucket)
+	{
+		if(bucket < LINEAR) {
+			return bucket;
+		}
+		int exponent = (bucket - LINEAR) / SUB_BUCKETS + 6;
+		long sub = (bucket - LINEAR) % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+	}
+
+	long getCount()
+	{
+		long total = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			total += counts.get(i);
+		}
+		return total;
+	}
+
+	// Value at or below which the given percentage of recorded values fall
+	long percentile(double percent)
+	{
+		long total = getCount();
+		if(total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long)Math.ceil(total * percent / 100));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if(seen >= rank) {
+				return highest(i);
+			}
+		}
+		return highest(BUCKETS - 1);
+	}
+
+	void add(LatencyHistogram other)
+	{
+		for(int i = 0; i < BUCKETS; i++) {
+			long count = other.counts.get(i);
+			if(count != 0) {
+				counts.addAndGet(i, count);
+			}
+		}
+	}
+
+	void reset()
+	{
+		for(int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+	}
+}
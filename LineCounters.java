@@ -0,0 +1,144 @@
+// Per-line occupancy counters for both players, updated one move at a time.
+// A move only touches the lines through its cell, so win and draw detection
+// cost O(lines through the cell) and never look at the rest of the board.
+// The counters also keep a running open-line score for the AI heuristic.
+// Moves must be undone in reverse order, as the search does.
+final class LineCounters
+{
+	// Heuristic weight of an open line holding n marks of one side
+	private static final int[] LINE_WEIGHTS = {0, 1, 4, 16, 64, 256, 1024, 4096, 16384};
+
+	private final BoardGeometry geometry;
+	private final int[][] cellLines;
+	private final int winLength;
+	private final byte[] xCounts;
+	private final byte[] oCounts;
+
+	private int moveCount = 0;
+	private int winner = -1;
+	private int winningLine = -1;
+	private int lineScore = 0; // Open-line score from X's point of view
+
+	LineCounters(BoardGeometry geometry)
+	{
+		this.geometry = geometry;
+		this.cellLines = geometry.getCellLines();
+		this.winLength = geometry.getWinLength();
+		this.xCounts = new byte[geometry.getLineMasks().length];
+		this.oCounts = new byte[geometry.getLineMasks().length];
+	}
+
+	// Counters for an existing position (which must not already be won)
+	static LineCounters of(Position position)
+	{
+		LineCounters counters = new LineCounters(position.getGeometry());
+		for(long x = position.bits(Position.X); x != 0; x &= x - 1) {
+			counters.place(Long.numberOfTrailingZeros(x), Position.X);
+		}
+		for(long o = position.bits(Position.O); o != 0; o &= o - 1) {
+			counters.place(Long.numberOfTrailingZeros(o), Position.O);
+		}
+		return counters;
+	}
+
+	// Records a move; returns true if it completes a line
+	boolean place(int cell, int side)
+	{
+		byte[] own = side == Position.X ? xCounts : oCounts;
+		byte[] other = side == Position.X ? oCounts : xCounts;
+		int sign = side == Position.X ? 1 : -1;
+		boolean won = false;
+		for(int line : cellLines[cell]) {
+			int count = own[line];
+			if(other[line] == 0) {
+				// Still open for us: it gains a mark
+				lineScore += sign * (LINE_WEIGHTS[count + 1] - LINE_WEIGHTS[count]);
+			} else if(count == 0) {
+				// Was open for them: it is blocked now
+				lineScore += sign * LINE_WEIGHTS[other[line]];
+			}
+			own[line] = (byte)(count + 1);
+			if(count + 1 == winLength && !won) {
+				won = true;
+				winner = side;
+				winningLine = line;
+			}
+		}
+		moveCount++;
+		return won;
+	}
+
+	// Reverses the most recent place(cell, side)
+	void undo(int cell, int side)
+	{
+		byte[] own = side == Position.X ? xCounts : oCounts;
+		byte[] other = side == Position.X ? oCounts : xCounts;
+		int sign = side == Position.X ? 1 : -1;
+		for(int line : cellLines[cell]) {
+			int count = own[line] - 1;
+			own[line] = (byte)count;
+			if(other[line] == 0) {
+				lineScore -= sign * (LINE_WEIGHTS[count + 1] - LINE_WEIGHTS[count]);
+			} else if(count == 0) {
+				lineScore -= sign * LINE_WEIGHTS[other[line]];
+			}
+		}
+		moveCount--;
+		// Play stops at the first win, so only the last move can have made it
+		winner = -1;
+		winningLine = -1;
+	}
+
+	void reset()
+	{
+		java.util.Arrays.fill(xCounts, (byte)0);
+		java.util.Arrays.fill(oCounts, (byte)0);
+		moveCount = 0;
+		winner = -1;
+		winningLine = -1;
+		lineScore = 0;
+	}
+
+	BoardGeometry getGeometry()
+	{
+		return geometry;
+	}
+
+	// Side that completed a line, or -1
+	int getWinner()
+	{
+		return winner;
+	}
+
+	// Index into the geometry's line tables of the completed line, or -1
+	int getWinningLine()
+	{
+		return winningLine;
+	}
+
+	int getMoveCount()
+	{
+		return moveCount;
+	}
+
+	boolean isFull()
+	{
+		return moveCount == geometry.getCellCount();
+	}
+
+	boolean isDraw()
+	{
+		return winner == -1 && isFull();
+	}
+
+	int count(int side, int line)
+	{
+		return side == Position.X ? xCounts[line] : oCounts[line];
+	}
+
+	// Open lines weighted by how many marks they hold, for the given side
+	int openLineScore(int side)
+	{
+		return side == Position.X ? lineScore : -lineScore;
+	}
+}
@@ -0,0 +1,493 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Simulated players for load testing a game server:
+//   java LoadClient [--host localhost] [--port 7777] [--players 1000]
+//                   [--seconds 10] [--size 3] [--win 3] [--seed S]
+//                   [--journal FILE] [--verify] [--spectators N] [--computer]
+// Every player holds its own connection and a rating between 800 and 2200,
+// joins, moves as soon as it is its turn and joins again when a game ends;
+// with --computer it lets the server seat it opposite the computer when
+// nobody near its rating is waiting. Moves are random, or with
+// --journal replayed from the finished games of a GameJournal on the same
+// board: both players of a game pick the script by game id, so they agree
+// without talking. --verify asks for the BOARD of every finished game and
+// counts any that differs from the board the client kept, as well as
+// replayed games that end with another result than in the journal.
+// --spectators adds connections that watch the newest game, follow its
+// DELTA frames and move on to the then newest when it ends; a mark on a
+// cell that is already taken counts as a mismatch.
+// All players run on one selector thread. A move's latency is the time
+// from sending it to reading it back from the server, and the wait for a
+// match the time from JOIN to START. The first fifth of the run (at most
+// two seconds) warms up and is not counted.
+final class LoadClient
+{
+	private final String host;
+	private final int port;
+	private final BoardGeometry geometry;
+	private final SplittableRandom random;
+	private final List<GameScript> scripts;
+	private final boolean verify;
+	private final boolean acceptsComputer;
+	private final List<Spectator> idle = new ArrayList<>(); // No game to watch yet
+	private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+	private boolean measuring = false;
+	private long moves = 0;
+	private long games = 0;
+	private long errors = 0;
+	private long mismatches = 0;
+	private long bytes = 0;
+	private long spectatorUpdates = 0;
+	private long spectatorFrames = 0;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LatencyHistogram matchWait = new LatencyHistogram();
+
+	private LoadClient(String host, int port, BoardGeometry geometry, long seed, List<GameScript> scripts, boolean verify,
+		boolean acceptsComputer)
+	{
+		this.host = host;
+		this.port = port;
+		this.geometry = geometry;
+		this.random = new SplittableRandom(seed);
+		this.scripts = scripts;
+		this.verify = verify;
+		this.acceptsComputer = acceptsComputer;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		String host = "localhost";
+		int port = 7777;
+		int players = 1000;
+		double seconds = 10;
+		int size = 3;
+		int winLength = 3;
+		long seed = new SplittableRandom().nextLong();
+		Path journal = null;
+		boolean verify = false;
+		boolean acceptsComputer = false;
+		int spectators = 0;
+		try {
+			for(int i = 0; i < args.length; i += 2) {
+				if(args[i].equals("--verify") || args[i].equals("--computer")) {
+					verify |= args[i].equals("--verify");
+					acceptsComputer |= args[i].equals("--computer");
+					i--;
+					continue;
+				}
+				if(i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + args[i]);
+				}
+				String value = args[i + 1];
+				switch(args[i]) {
+					case "--host": host = value; break;
+					case "--port": port = Integer.parseInt(value); break;
+					case "--players": players = Integer.parseInt(value); break;
+					case "--seconds": seconds = Double.parseDouble(value); break;
+					case "--size": size = Integer.parseInt(value); break;
+					case "--win": winLength = Integer.parseInt(value); break;
+					case "--seed": seed = Long.parseLong(value); break;
+					case "--journal": journal = Paths.get(value); break;
+					case "--spectators": spectators = Integer.parseInt(value); break;
+					default: throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+			if(players < 2 || seconds <= 0) {
+				throw new IllegalArgumentException("Need at least two players and a positive duration");
+			}
+			BoardGeometry.of(size, winLength); // Validates the board
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java LoadClient [--host localhost] [--port 7777] [--players 1000]");
+			System.err.println("                       [--seconds 10] [--size 3] [--win 3] [--seed S]");
+			System.err.println("                       [--journal FILE] [--verify] [--spectators N] [--computer]");
+			System.exit(2);
+		}
+
+		BoardGeometry geometry = BoardGeometry.of(size, winLength);
+		List<GameScript> scripts = Collections.emptyList();
+		if(journal != null) {
+			scripts = loadScripts(journal, geometry, 1_000_000);
+			System.out.println("Replaying " + scripts.size() + " games from " + journal);
+			if(scripts.isEmpty()) {
+				System.err.println("No finished " + size + "x" + size + " games with " + winLength + " in a row in " + journal);
+				System.exit(1);
+			}
+		}
+		Result result = run(host, port, players, spectators, seconds, geometry, seed, scripts, verify, acceptsComputer);
+		System.out.println(result);
+	}
+
+	static Result run(String host, int port, int players, int spectators, double seconds, BoardGeometry geometry,
+		long seed, List<GameScript> scripts, boolean verify, boolean acceptsComputer) throws IOException
+	{
+		return new LoadClient(host, port, geometry, seed, scripts, verify, acceptsComputer).run(players, spectators, seconds);
+	}
+
+	// Up to limit finished games on this board from a journal
+	static List<GameScript> loadScripts(Path journal, BoardGeometry geometry, int limit) throws IOException
+	{
+		List<GameScript> scripts = new ArrayList<>();
+		try(GameJournalReader reader = new GameJournalReader(journal)) {
+			while(scripts.size() < limit && reader.next()) {
+				if(reader.getSize() == geometry.getSize() && reader.getWinLength() == geometry.getWinLength()) {
+					scripts.add(new GameScript(reader.getMoves(), reader.getWinner()));
+				}
+			}
+		}
+		return scripts;
+	}
+
+	private Result run(int count, int spectatorCount, double seconds) throws IOException
+	{
+		List<Client> clients = new ArrayList<>();
+		try(Selector selector = Selector.open()) {
+			for(int i = 0; i < count + spectatorCount; i++) {
+				SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+				channel.socket().setTcpNoDelay(true);
+				channel.configureBlocking(false);
+				Client client = i < count ? new Player(channel) : new Spectator(channel);
+				channel.register(selector, SelectionKey.OP_READ, client);
+				clients.add(client);
+			}
+			for(Client client : clients) {
+				client.begin();
+			}
+
+			long start = System.nanoTime();
+			long warmupEnd = start + (long)(Math.min(2, seconds / 5) * 1e9);
+			long end = start + (long)(seconds * 1e9);
+			long measureStart = 0;
+			long nextRetry = start;
+			for(long now = start; now < end; now = System.nanoTime()) {
+				if(!measuring && now >= warmupEnd) {
+					measuring = true;
+					measureStart = now;
+				}
+				if(!idle.isEmpty() && now >= nextRetry) {
+					List<Spectator> retry = new ArrayList<>(idle);
+					idle.clear();
+					for(Spectator spectator : retry) {
+						spectator.begin();
+					}
+					nextRetry = now + GameHall.TICK_MILLIS * 1_000_000L;
+				}
+				selector.select(Math.max(1, Math.min(GameHall.TICK_MILLIS, (end - now) / 1_000_000)));
+				for(SelectionKey key : selector.selectedKeys()) {
+					((Client)key.attachment()).read();
+				}
+				selector.selectedKeys().clear();
+			}
+			double measured = (System.nanoTime() - measureStart) / 1e9;
+			return new Result(count, moves, games, errors, mismatches, bytes, spectatorCount, spectatorUpdates,
+				spectatorFrames, measured, latency, matchWait);
+		} finally {
+			for(Client client : clients) {
+				client.channel.close();
+			}
+		}
+	}
+
+	// The moves of one recorded game and how it ended
+	static final class GameScript
+	{
+		final int[] moves;
+		final int winner;
+
+		GameScript(int[] moves, int winner)
+		{
+			this.moves = moves;
+			this.winner = winner;
+		}
+	}
+
+	// Figures from one load run; latencies in microseconds
+	static final class Result
+	{
+		final int players;
+		final long moves;
+		final long games;
+		final long errors;
+		final long mismatches;
+		final long bytes;
+		final int spectators;
+		final long spectatorUpdates;
+		final long spectatorFrames;
+		final double seconds;
+		final LatencyHistogram latency;
+		final LatencyHistogram matchWait;
+
+		Result(int players, long moves, long games, long errors, long mismatches, long bytes, int spectators,
+			long spectatorUpdates, long spectatorFrames, double seconds, LatencyHistogram latency, LatencyHistogram matchWait)
+		{
+			this.players = players;
+			this.moves = moves;
+			this.games = games;
+			this.errors = errors;
+			this.mismatches = mismatches;
+			this.bytes = bytes;
+			this.spectators = spectators;
+			this.spectatorUpdates = spectatorUpdates;
+			this.spectatorFrames = spectatorFrames;
+			this.seconds = seconds;
+			this.latency = latency;
+			this.matchWait = matchWait;
+		}
+
+		double movesPerSecond()
+		{
+			return moves / seconds;
+		}
+
+		// Sent and received, over all frames
+		double bytesPerMove()
+		{
+			return moves == 0 ? 0 : (double)bytes / moves;
+		}
+
+		public String toString()
+		{
+			String text = String.format("%d players: %.0f moves/s, %.0f games/s, %.1f bytes/move, latency p50 %d us, "
+				+ "p99 %d us, p99.9 %d us, %d errors, %d mismatches", players, movesPerSecond(), games / seconds,
+				bytesPerMove(), latency.percentile(50), latency.percentile(99), latency.percentile(99.9), errors, mismatches);
+			text += String.format("%nWait for a match: p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms", matchWait.percentile(50) / 1000.0,
+				matchWait.percentile(99) / 1000.0, matchWait.percentile(99.9) / 1000.0);
+			if(spectators > 0) {
+				text += String.format("%n%d spectators: %.0f updates/s in %.0f DELTA frames/s", spectators,
+					spectatorUpdates / seconds, spectatorFrames / seconds);
+			}
+			return text;
+		}
+	}
+
+	// One connection and the frames coming in on it
+	private abstract class Client
+	{
+		final SocketChannel channel;
+		private final byte[] incoming = new byte[WireProtocol.MAX_FRAME];
+		private int incomingLength = 0;
+
+		Client(SocketChannel channel)
+		{
+			this.channel = channel;
+		}
+
+		// Sends the first frame
+		abstract void begin() throws IOException;
+
+		abstract void receive(byte[] frame) throws IOException;
+
+		void read() throws IOException
+		{
+			readBuffer.clear();
+			int count = channel.read(readBuffer);
+			if(count < 0) {
+				throw new IOException("The server closed a connection");
+			}
+			if(measuring && this instanceof Player) {
+				bytes += count;
+			}
+			readBuffer.flip();
+			while(readBuffer.hasRemaining()) {
+				incoming[incomingLength++] = readBuffer.get();
+				int length = WireProtocol.frameLength(incoming, incomingLength);
+				if(length < 0 || length > incoming.length) {
+					throw new IOException("Not a protocol frame from the server");
+				}
+				if(incomingLength == length) {
+					receive(incoming);
+					incomingLength = 0;
+				}
+			}
+		}
+
+		// Frames are tiny, so a full socket buffer only means a short spin
+		void send(byte[] frame) throws IOException
+		{
+			if(measuring && this instanceof Player) {
+				bytes += frame.length;
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(frame);
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	private final class Player extends Client
+	{
+		private int game;
+		private int side = -1;
+		private Position board;
+		private GameScript script;
+		private int sentCell = -1;
+		private long sentAt;
+		private final int rating = 800 + random.nextInt(1400);
+		private long joinedAt;
+
+		Player(SocketChannel channel)
+		{
+			super(channel);
+		}
+
+		void begin() throws IOException
+		{
+			joinedAt = System.nanoTime();
+			send(WireProtocol.join(geometry, rating, acceptsComputer));
+		}
+
+		void receive(byte[] frame) throws IOException
+		{
+			switch(frame[0]) {
+				case WireProtocol.START:
+					if(measuring) {
+						matchWait.record((System.nanoTime() - joinedAt) / 1000);
+					}
+					game = WireProtocol.game(frame);
+					side = frame[5];
+					board = new Position(geometry);
+					script = scripts.isEmpty() ? null : scripts.get(Integer.remainderUnsigned(game, scripts.size()));
+					if(side == Position.X) {
+						move();
+					}
+					break;
+				case WireProtocol.MOVE:
+					int cell = WireProtocol.moveCell(frame);
+					int mover = WireProtocol.moveSide(frame);
+					board.place(cell, mover);
+					if(mover == side && cell == sentCell) {
+						if(measuring) {
+							moves++;
+							latency.record((System.nanoTime() - sentAt) / 1000);
+						}
+						sentCell = -1;
+					}
+					// Only move if this one did not finish the game
+					if(mover != side && !board.hasWonThrough(cell, mover) && !board.isFull()) {
+						move();
+					}
+					break;
+				case WireProtocol.END:
+					if(side == Position.X) {
+						if(measuring) {
+							games++; // Counted once per game
+						}
+						if(verify && script != null && !WireProtocol.endForfeit(frame)
+							&& WireProtocol.endWinner(frame) != script.winner) {
+							mismatches++;
+						}
+					}
+					if(verify) {
+						send(WireProtocol.sync());
+					}
+					side = -1;
+					begin();
+					break;
+				case WireProtocol.BOARD:
+					Position served = WireProtocol.readBoard(frame);
+					if(served.bits(Position.X) != board.bits(Position.X) || served.bits(Position.O) != board.bits(Position.O)) {
+						mismatches++;
+					}
+					break;
+				case WireProtocol.ERROR:
+					errors++;
+					break;
+				default:
+					break; // WAITING
+			}
+		}
+
+		// The next move of the script while it fits the board, else a random one
+		private void move() throws IOException
+		{
+			int played = Long.bitCount(board.occupied());
+			if(script != null && played < script.moves.length && board.isEmpty(script.moves[played])) {
+				sentCell = script.moves[played];
+			} else {
+				sentCell = ComputerPlayer.getRandomMove(board, random);
+			}
+			sentAt = System.nanoTime();
+			send(WireProtocol.move(game, sentCell, side));
+		}
+	}
+
+	private final class Spectator extends Client
+	{
+		private int game;
+		private Position board;
+		private int round;
+		private int rounds;
+
+		Spectator(SocketChannel channel)
+		{
+			super(channel);
+		}
+
+		void begin() throws IOException
+		{
+			board = null;
+			send(WireProtocol.watch(0));
+		}
+
+		void receive(byte[] frame) throws IOException
+		{
+			switch(frame[0]) {
+				case WireProtocol.BOARD:
+					game = WireProtocol.game(frame);
+					board = WireProtocol.readBoard(frame);
+					break;
+				case WireProtocol.MATCH:
+					round = WireProtocol.matchCount(frame, 0);
+					rounds = WireProtocol.matchCount(frame, 1);
+					if((frame[15] & 0xFF) != WireProtocol.NO_RESULT && round >= rounds) {
+						begin(); // Over already; find a newer one
+					}
+					break;
+				case WireProtocol.DELTA:
+					if(board == null || WireProtocol.game(frame) != game) {
+						break; // Left over from the last game watched
+					}
+					int count = frame[5] & 0xFF;
+					if(measuring) {
+						spectatorUpdates += count;
+						spectatorFrames++;
+					}
+					for(int i = 0; i < count; i++) {
+						byte entry = frame[6 + i];
+						if(WireProtocol.isMark(entry)) {
+							int cell = WireProtocol.markCell(entry);
+							if(!board.isEmpty(cell)) {
+								mismatches++;
+							} else {
+								board.place(cell, WireProtocol.markSide(entry));
+							}
+						} else if(entry == WireProtocol.NEXT_ROUND) {
+							board.clearAll();
+							round++;
+						} else if(round >= rounds) {
+							begin();
+							break;
+						}
+					}
+					break;
+				case WireProtocol.ERROR:
+					idle.add(this); // Nothing to watch yet
+					break;
+				default:
+					break;
+			}
+		}
+	}
+}
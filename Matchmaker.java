@@ -0,0 +1,228 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pairs players waiting for a game by rating. Waiting players are queued
+// per board in rating buckets RATING_STEP wide, each with a lock of its
+// own, so joins for different boards or ratings never wait for each other
+// and a join holds one bucket for a few instructions. A join is matched at
+// once with the longest waiting player in its bucket. The hall's ticker
+// calls sweep(), which lets a player who has waited d * WIDEN_MILLIS be
+// matched d buckets away, and gives those who have waited AI_AFTER_MILLIS
+// and accept a computer opponent one at their level. Leaving never locks:
+// a ticket is cancelled by a compare-and-set and skipped when it reaches
+// the head of its bucket.
+final class Matchmaker
+{
+	static final int RATING_STEP = 200;
+	static final int BUCKETS = 16;
+	static final int DEFAULT_RATING = 1200;
+	static final long WIDEN_MILLIS = 500;
+	static final long AI_AFTER_MILLIS = 3000;
+
+	// Computer opponents for the rating buckets, weakest first
+	private static final String[] AI_LEVELS = {
+		"Easy", "Easy", "Easy", "Easy", "Easy", "Medium", "Medium", "Hard", "Hard", "Expert"
+	};
+
+	private final GameHall hall;
+	private final ConcurrentHashMap<BoardGeometry, Bucket[]> boards = new ConcurrentHashMap<>();
+
+	Matchmaker(GameHall hall)
+	{
+		this.hall = hall;
+	}
+
+	static int bucket(int rating)
+	{
+		return Math.max(0, Math.min(BUCKETS - 1, rating / RATING_STEP));
+	}
+
+	// Difficulty of the computer opponent for a rating
+	static String aiLevel(int rating)
+	{
+		return AI_LEVELS[Math.min(AI_LEVELS.length - 1, bucket(rating))];
+	}
+
+	// Queues a player, or seats them at once opposite the longest waiting
+	// player of their bucket. Returns the player's ticket
+	Ticket join(ServerSession session, BoardGeometry geometry, int rating, boolean acceptsAi)
+	{
+		Ticket ticket = new Ticket(session, geometry, rating, acceptsAi);
+		Bucket bucket = boards.computeIfAbsent(geometry, g -> newBuckets())[bucket(rating)];
+		Ticket opponent;
+		synchronized(bucket) {
+			opponent = bucket.claimHead();
+			if(opponent == null) {
+				bucket.queue.add(ticket);
+			} else {
+				ticket.state.set(Ticket.MATCHED);
+			}
+		}
+		if(opponent == null) {
+			session.send(WireProtocol.waiting());
+		} else {
+			hall.seat(opponent, ticket);
+		}
+		return ticket;
+	}
+
+	private static Bucket[] newBuckets()
+	{
+		Bucket[] buckets = new Bucket[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new Bucket();
+		}
+		return buckets;
+	}
+
+	// On the ticker: matches across buckets and hands long waits to the AI
+	void sweep()
+	{
+		long now = System.nanoTime();
+		List<Ticket> pairs = new ArrayList<>();
+		List<Ticket> toAi = new ArrayList<>();
+		for(Bucket[] buckets : boards.values()) {
+			for(int distance = 1; distance < BUCKETS; distance++) {
+				long widenNanos = distance * WIDEN_MILLIS * 1_000_000;
+				for(int i = 0; i + distance < BUCKETS; i++) {
+					Bucket low = buckets[i];
+					Bucket high = buckets[i + distance];
+					synchronized(low) {
+						synchronized(high) {
+							pairHeads(low, high, now - widenNanos, pairs);
+						}
+					}
+				}
+			}
+			long aiNanos = AI_AFTER_MILLIS * 1_000_000;
+			for(Bucket bucket : buckets) {
+				synchronized(bucket) {
+					for(Iterator<Ticket> it = bucket.queue.iterator(); it.hasNext(); ) {
+						Ticket ticket = it.next();
+						if(now - ticket.since < aiNanos) {
+							break; // The rest came later
+						}
+						int state = ticket.state.get();
+						if(state == Ticket.CANCELLED || (ticket.acceptsAi && ticket.state.compareAndSet(Ticket.WAITING, Ticket.MATCHED))) {
+							it.remove();
+							if(state != Ticket.CANCELLED) {
+								toAi.add(ticket);
+							}
+						}
+					}
+				}
+			}
+		}
+		for(int i = 0; i < pairs.size(); i += 2) {
+			hall.seat(pairs.get(i), pairs.get(i + 1));
+		}
+		for(Ticket ticket : toAi) {
+			hall.seatWithComputer(ticket, aiLevel(ticket.rating));
+		}
+	}
+
+	// Pairs the heads of two buckets, as long as one of them joined before
+	// the given time; the one waiting longer comes first. Both are locked
+	private static void pairHeads(Bucket low, Bucket high, long joinedBefore, List<Ticket> pairs)
+	{
+		while(true) {
+			Ticket a = low.firstWaiting();
+			Ticket b = high.firstWaiting();
+			if(a == null || b == null || Math.min(a.since, b.since) > joinedBefore) {
+				return;
+			}
+			// Held in CLAIMING so a cancel waits to see whether b can be had
+			if(!a.state.compareAndSet(Ticket.WAITING, Ticket.CLAIMING)) {
+				continue; // Cancelled; firstWaiting() drops it
+			}
+			if(!b.state.compareAndSet(Ticket.WAITING, Ticket.MATCHED)) {
+				a.state.set(Ticket.WAITING);
+				continue;
+			}
+			a.state.set(Ticket.MATCHED);
+			low.queue.poll();
+			high.queue.poll();
+			if(a.since <= b.since) {
+				pairs.add(a);
+				pairs.add(b);
+			} else {
+				pairs.add(b);
+				pairs.add(a);
+			}
+		}
+	}
+
+	// One player's place in the queue
+	static final class Ticket
+	{
+		static final int WAITING = 0;
+		static final int CLAIMING = 1;
+		static final int MATCHED = 2;
+		static final int CANCELLED = 3;
+
+		final ServerSession session;
+		final BoardGeometry geometry;
+		final int rating;
+		final boolean acceptsAi;
+		final long since = System.nanoTime();
+		final AtomicInteger state = new AtomicInteger(WAITING);
+
+		Ticket(ServerSession session, BoardGeometry geometry, int rating, boolean acceptsAi)
+		{
+			this.session = session;
+			this.geometry = geometry;
+			this.rating = rating;
+			this.acceptsAi = acceptsAi;
+		}
+
+		// True if the player was still waiting and now is not
+		boolean cancel()
+		{
+			while(true) {
+				int current = state.get();
+				if(current == WAITING) {
+					if(state.compareAndSet(WAITING, CANCELLED)) {
+						return true;
+					}
+				} else if(current == CLAIMING) {
+					Thread.yield(); // Decided within a few instructions
+				} else {
+					return false;
+				}
+			}
+		}
+	}
+
+	// Waiting players of one rating range, oldest first; guarded by itself
+	private static final class Bucket
+	{
+		final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+
+		// Oldest ticket still waiting, dropping cancelled ones on the way
+		Ticket firstWaiting()
+		{
+			for(Ticket head; (head = queue.peek()) != null; queue.poll()) {
+				if(head.state.get() == Ticket.WAITING) {
+					return head;
+				}
+			}
+			return null;
+		}
+
+		// Takes the oldest waiting ticket out of the queue, or null
+		Ticket claimHead()
+		{
+			for(Ticket head; (head = firstWaiting()) != null; ) {
+				queue.poll();
+				if(head.state.compareAndSet(Ticket.WAITING, Ticket.MATCHED)) {
+					return head;
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,301 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+// Monte Carlo Tree Search with UCT selection and random playouts, for boards
+// where exhaustive minimax is out of reach. Several threads grow one shared
+// tree. Node statistics are updated lock-free. A visit is counted when a
+// thread passes through a node and the reward only when its playout ends,
+// so an in-flight playout acts as a virtual loss that steers other threads
+// to different branches. Each worker draws playouts from its own generator,
+// split from the engine's; a seeded single-threaded search with an iteration
+// budget is reproducible.
+final class MctsEngine
+{
+	private static final double EXPLORATION = Math.sqrt(2);
+
+	// Rewards per playout, from the point of view of the node's mover
+	private static final long WIN_REWARD = 2;
+	private static final long DRAW_REWARD = 1;
+	private static final int DRAW = -1;
+
+	private final BoardGeometry geometry;
+	private final int threads;
+	private long iterationBudget = 0;
+	private long timeBudgetMillis = 1000;
+	private ExecutorService workers;
+	private SplittableRandom random = new SplittableRandom();
+
+	private volatile long lastPlayouts = 0;
+	private volatile long lastNanos = 0;
+
+	MctsEngine(BoardGeometry geometry)
+	{
+		this(geometry, MinimaxEngine.defaultParallelism());
+	}
+
+	MctsEngine(BoardGeometry geometry, int threads)
+	{
+		this.geometry = geometry;
+		this.threads = Math.max(1, threads);
+	}
+
+	// Stop after this many playouts; 0 means no limit
+	void setIterationBudget(long iterations)
+	{
+		iterationBudget = Math.max(0, iterations);
+	}
+
+	// Stop after this much wall time; 0 means no limit
+	void setTimeBudgetMillis(long millis)
+	{
+		timeBudgetMillis = Math.max(0, millis);
+	}
+
+	// Seeds the playout generators of the following searches
+	synchronized void setSeed(long seed)
+	{
+		random = new SplittableRandom(seed);
+	}
+
+	int getThreads()
+	{
+		return threads;
+	}
+
+	long getLastPlayouts()
+	{
+		return lastPlayouts;
+	}
+
+	double getPlayoutsPerSecond()
+	{
+		return lastNanos == 0 ? 0 : lastPlayouts * 1_000_000_000.0 / lastNanos;
+	}
+
+	synchronized void shutdown()
+	{
+		if(workers != null) {
+			workers.shutdownNow();
+			workers = null;
+		}
+	}
+
+	private synchronized ExecutorService workers()
+	{
+		if(workers == null) {
+			workers = Executors.newFixedThreadPool(threads, runnable -> {
+				Thread thread = new Thread(runnable, "mcts-worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return workers;
+	}
+
+	// Returns the most visited move for the side to move, or -1 if none
+	int getBestMove(Position position, int side)
+	{
+		if(position.emptyCells() == 0) {
+			return -1;
+		}
+		if(iterationBudget == 0 && timeBudgetMillis == 0) {
+			throw new IllegalStateException("MCTS needs an iteration or time budget");
+		}
+
+		Node root = new Node(-1, Position.opponent(side));
+		AtomicLong playouts = new AtomicLong();
+		AtomicBoolean stop = new AtomicBoolean();
+		long start = System.nanoTime();
+		long deadline = timeBudgetMillis > 0 ? start + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+
+		List<Runnable> workerTasks = new ArrayList<>();
+		for(int i = 0; i < threads; i++) {
+			SplittableRandom workerRandom = splitRandom();
+			workerTasks.add(() -> {
+				int[] scratch = new int[geometry.getCellCount()];
+				Node[] path = new Node[geometry.getCellCount() + 1];
+				while(!stop.get()) {
+					long n = playouts.incrementAndGet();
+					// The first playout runs whatever the clock says, so the
+					// root always has moves to choose from
+					if((iterationBudget > 0 && n > iterationBudget) || (n > 1 && System.nanoTime() >= deadline)) {
+						playouts.decrementAndGet();
+						break;
+					}
+					iterate(root, position.copy(), path, scratch, workerRandom);
+				}
+			});
+		}
+
+		List<Future<?>> running = new ArrayList<>();
+		try {
+			ExecutorService pool = workers();
+			for(Runnable worker : workerTasks) {
+				running.add(pool.submit(worker));
+			}
+			for(Future<?> future : running) {
+				future.get();
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Search cancelled");
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			stop.set(true);
+			lastPlayouts = playouts.get();
+			lastNanos = System.nanoTime() - start;
+		}
+
+		// Most visited child; ties go to the lowest cell
+		int bestMove = -1;
+		long bestVisits = -1;
+		for(Node child : root.children) {
+			if(child.visits > bestVisits || (child.visits == bestVisits && child.cell < bestMove)) {
+				bestVisits = child.visits;
+				bestMove = child.cell;
+			}
+		}
+		return bestMove;
+	}
+
+	private synchronized SplittableRandom splitRandom()
+	{
+		return random.split();
+	}
+
+	// One selection, expansion, playout and backpropagation pass
+	private void iterate(Node root, Position position, Node[] path, int[] scratch, SplittableRandom random)
+	{
+		int length = 0;
+		Node node = root;
+		VISITS.incrementAndGet(node);
+		path[length++] = node;
+
+		int winner = Integer.MIN_VALUE;
+		while(winner == Integer.MIN_VALUE) {
+			Node[] children = node.children;
+			if(children == null) {
+				// Expand on the second visit; the first goes straight to a playout
+				if(node != root && node.visits <= 1) {
+					break;
+				}
+				children = expand(node, position);
+			}
+
+			node = select(node, children);
+			VISITS.incrementAndGet(node);
+			path[length++] = node;
+			position.place(node.cell, node.mover);
+
+			if(position.hasWonThrough(node.cell, node.mover)) {
+				winner = node.mover;
+			} else if(position.isFull()) {
+				winner = DRAW;
+			}
+		}
+
+		if(winner == Integer.MIN_VALUE) {
+			winner = playout(position, Position.opponent(node.mover), scratch, random);
+		}
+
+		for(int i = 0; i < length; i++) {
+			Node visited = path[i];
+			if(winner == visited.mover) {
+				REWARD.addAndGet(visited, WIN_REWARD);
+			} else if(winner == DRAW) {
+				REWARD.addAndGet(visited, DRAW_REWARD);
+			}
+		}
+	}
+
+	private Node[] expand(Node node, Position position)
+	{
+		int childMover = Position.opponent(node.mover);
+		List<Node> created = new ArrayList<>();
+		for(int cell : geometry.getMoveOrder()) {
+			if(position.isEmpty(cell)) {
+				created.add(new Node(cell, childMover));
+			}
+		}
+		Node[] children = created.toArray(new Node[0]);
+		// Another thread may have expanded the node first; keep its children
+		if(!CHILDREN.compareAndSet(node, null, children)) {
+			children = node.children;
+		}
+		return children;
+	}
+
+	// UCT: average reward plus an exploration bonus; unvisited children first
+	private Node select(Node parent, Node[] children)
+	{
+		double logParent = Math.log(Math.max(1, parent.visits));
+		Node best = children[0];
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for(Node child : children) {
+			long visits = child.visits;
+			if(visits == 0) {
+				return child;
+			}
+			double value = child.reward / (2.0 * visits) + EXPLORATION * Math.sqrt(logParent / visits);
+			if(value > bestValue) {
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	// Random moves to the end of the game; returns the winner or DRAW
+	private int playout(Position position, int side, int[] empty, SplittableRandom random)
+	{
+		int count = 0;
+		for(long free = position.emptyCells(); free != 0; free &= free - 1) {
+			empty[count++] = Long.numberOfTrailingZeros(free);
+		}
+		while(count > 0) {
+			int pick = random.nextInt(count);
+			int cell = empty[pick];
+			empty[pick] = empty[--count];
+			position.place(cell, side);
+			if(position.hasWonThrough(cell, side)) {
+				return side;
+			}
+			side = Position.opponent(side);
+		}
+		return DRAW;
+	}
+
+	private static final class Node
+	{
+		final int cell;
+		final int mover; // Side that played cell to reach this node
+		volatile Node[] children;
+		volatile long visits;
+		volatile long reward;
+
+		Node(int cell, int mover)
+		{
+			this.cell = cell;
+			this.mover = mover;
+		}
+	}
+
+	private static final AtomicLongFieldUpdater<Node> VISITS = AtomicLongFieldUpdater.newUpdater(Node.class, "visits");
+	private static final AtomicLongFieldUpdater<Node> REWARD = AtomicLongFieldUpdater.newUpdater(Node.class, "reward");
+	private static final AtomicReferenceFieldUpdater<Node, Node[]> CHILDREN =
+		AtomicReferenceFieldUpdater.newUpdater(Node.class, Node[].class, "children");
+}
@@ -0,0 +1,451 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Alpha-beta minimax search over bitboard positions, shared by the computer
+// opponent and the hint system. Boards up to 3x3 are searched to the end;
+// larger boards stop at a depth limit and fall back to a line heuristic.
+// With parallelism above 1 the root moves (and optionally the subtrees a few
+// plies below them) are searched on a work-stealing ForkJoinPool.
+final class MinimaxEngine
+{
+	// Forced wins score WIN_SCORE minus their depth, far above any heuristic
+	static final int WIN_SCORE = 1 << 28;
+	private static final int WIN_THRESHOLD = WIN_SCORE - 256;
+	private static final int INFINITY = 1 << 30;
+
+	private final BoardGeometry geometry;
+	private final Symmetry symmetry;
+	private final int[] moveOrder;
+	private final int searchDepth;
+
+	// Positions already searched, shared across rotations and reflections
+	private final TranspositionCache cache;
+
+	// Parallel search settings; a pool is only created when parallelism > 1,
+	// on the first search that needs it
+	private volatile int parallelism = 1;
+	private int splitDepth = 0;
+	private volatile ForkJoinPool pool;
+
+	private volatile long nodesSearched = 0;
+
+	MinimaxEngine()
+	{
+		this(BoardGeometry.STANDARD);
+	}
+
+	MinimaxEngine(BoardGeometry geometry)
+	{
+		this(geometry, defaultDepth(geometry), 1 << 16);
+		// 3x3 searches finish in microseconds; only split bigger boards
+		if(geometry.getCellCount() > 9) {
+			setParallelism(defaultParallelism());
+		}
+	}
+
+	MinimaxEngine(BoardGeometry geometry, int searchDepth, int cacheCapacity)
+	{
+		this.geometry = geometry;
+		this.symmetry = geometry.getSymmetry();
+		this.moveOrder = geometry.getMoveOrder();
+		this.searchDepth = searchDepth;
+		this.cache = new TranspositionCache(cacheCapacity);
+	}
+
+	// Plies to search: the whole game on 3x3, less as the board grows
+	static int defaultDepth(BoardGeometry geometry)
+	{
+		int cells = geometry.getCellCount();
+		if(cells <= 9) {
+			return cells;
+		} else if(cells <= 16) {
+			return 6;
+		} else if(cells <= 25) {
+			return 4;
+		}
+		return 3;
+	}
+
+	// Thread cap from -Dtictactoe.search.threads, otherwise one per core
+	static int defaultParallelism()
+	{
+		return Math.max(1, Integer.getInteger("tictactoe.search.threads", Runtime.getRuntime().availableProcessors()));
+	}
+
+	// Caps the number of threads a search may use; 1 searches sequentially
+	synchronized void setParallelism(int threads)
+	{
+		threads = Math.max(1, threads);
+		if(threads == parallelism) {
+			return;
+		}
+		shutdown();
+		parallelism = threads;
+	}
+
+	int getParallelism()
+	{
+		return parallelism;
+	}
+
+	// Plies below the root whose subtrees are also split across threads
+	void setSplitDepth(int depth)
+	{
+		splitDepth = Math.max(0, depth);
+	}
+
+	int getSplitDepth()
+	{
+		return splitDepth;
+	}
+
+	private synchronized ForkJoinPool pool()
+	{
+		if(pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+		return pool;
+	}
+
+	// Releases the worker threads of a parallel engine
+	synchronized void shutdown()
+	{
+		if(pool != null) {
+			pool.shutdownNow();
+			pool = null;
+		}
+	}
+
+	BoardGeometry getGeometry()
+	{
+		return geometry;
+	}
+
+	int getSearchDepth()
+	{
+		return searchDepth;
+	}
+
+	// Number of nodes visited by the most recent getBestMove() call
+	long getNodesSearched()
+	{
+		return nodesSearched;
+	}
+
+	TranspositionCache getCache()
+	{
+		return cache;
+	}
+
+	// Returns the best cell for the side to move, or -1 if the board is full
+	int getBestMove(Position position, int side)
+	{
+		if(parallelism > 1) {
+			return getBestMoveParallel(position, side, pool());
+		}
+
+		Search search = new Search(position.copy(), new AtomicBoolean(), null);
+		int bestScore = -INFINITY;
+		int bestMove = -1;
+
+		// Root moves stay in index order so ties still go to the lowest cell
+		try {
+			for(int i = 0; i < geometry.getCellCount(); i++) {
+				if(position.isEmpty(i)) {
+					int score = search.searchMove(i, side, bestScore);
+					if(score > bestScore) {
+						bestScore = score;
+						bestMove = i;
+					}
+				}
+			}
+		} finally {
+			nodesSearched = search.nodes;
+		}
+
+		return bestMove;
+	}
+
+	// Every root move becomes a task. Moves that cannot beat the best score
+	// found so far fail low; the rest get exact scores, so picking the lowest
+	// cell with the top score gives the same move as the sequential search.
+	private int getBestMoveParallel(Position position, int side, ForkJoinPool searchPool)
+	{
+		AtomicBoolean cancelled = new AtomicBoolean();
+		AtomicInteger bestSoFar = new AtomicInteger(-INFINITY);
+		List<RootTask> tasks = new ArrayList<>();
+		for(int i = 0; i < geometry.getCellCount(); i++) {
+			if(position.isEmpty(i)) {
+				tasks.add(new RootTask(new Search(position.copy(), cancelled, searchPool), i, side, bestSoFar));
+			}
+		}
+
+		try {
+			searchPool.submit(() -> ForkJoinTask.invokeAll(tasks)).get();
+		} catch(InterruptedException e) {
+			cancelled.set(true);
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Search cancelled");
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			long nodes = 0;
+			for(RootTask task : tasks) {
+				nodes += task.search.nodes;
+			}
+			nodesSearched = nodes;
+		}
+
+		int bestScore = -INFINITY;
+		int bestMove = -1;
+		for(RootTask task : tasks) {
+			int score = task.join();
+			if(score > bestScore) {
+				bestScore = score;
+				bestMove = task.cell;
+			}
+		}
+		return bestMove;
+	}
+
+	private final class RootTask extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+		private final int cell;
+		private final int side;
+		private final AtomicInteger bestSoFar;
+
+		RootTask(Search search, int cell, int side, AtomicInteger bestSoFar)
+		{
+			this.search = search;
+			this.cell = cell;
+			this.side = side;
+			this.bestSoFar = bestSoFar;
+		}
+
+		protected Integer compute()
+		{
+			// One below the best keeps ties exact, so they resolve by cell
+			int score = search.searchMove(cell, side, bestSoFar.get() - 1);
+			bestSoFar.accumulateAndGet(score, Math::max);
+			return score;
+		}
+	}
+
+	// A subtree below a split node, searched with the window its parent had
+	// after the eldest child
+	private final class SplitTask extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Search search;
+		private final int cell;
+		private final int depth;
+		private final int alpha;
+		private final int beta;
+		private final int side;
+
+		SplitTask(Search search, int cell, int depth, int alpha, int beta, int side)
+		{
+			this.search = search;
+			this.cell = cell;
+			this.depth = depth;
+			this.alpha = alpha;
+			this.beta = beta;
+			this.side = side;
+		}
+
+		protected Integer compute()
+		{
+			search.play(cell, side);
+			return -search.negamax(depth + 1, -beta, -alpha, Position.opponent(side));
+		}
+	}
+
+	// Per-thread search state: a private position copy with its line
+	// counters, killers and node count
+	private final class Search
+	{
+		private final Position position;
+		private final LineCounters counters;
+		private final AtomicBoolean cancelled;
+		private final ForkJoinPool splitPool;
+
+		// Last move that caused a cutoff at each depth, tried first on the next visit
+		private final int[] killerMoves = new int[searchDepth + 1];
+		// Ordered candidate moves, one buffer per depth
+		private final int[][] moveLists = new int[searchDepth + 1][geometry.getCellCount()];
+		private long nodes = 0;
+
+		Search(Position position, AtomicBoolean cancelled, ForkJoinPool splitPool)
+		{
+			this.position = position;
+			this.counters = LineCounters.of(position);
+			this.cancelled = cancelled;
+			this.splitPool = splitPool;
+			Arrays.fill(killerMoves, -1);
+		}
+
+		// Score of a root move, exact whenever it beats alpha
+		int searchMove(int cell, int side, int alpha)
+		{
+			play(cell, side); // Make the move
+			int score = -negamax(0, -INFINITY, -alpha, Position.opponent(side));
+			undo(cell, side); // Undo the move
+			return score;
+		}
+
+		// Moves update the bitboards and the line counters together
+		void play(int cell, int side)
+		{
+			position.place(cell, side);
+			counters.place(cell, side);
+		}
+
+		void undo(int cell, int side)
+		{
+			counters.undo(cell, side);
+			position.clear(cell);
+		}
+
+		// Scores are from the point of view of the side to move
+		int negamax(int depth, int alpha, int beta, int side)
+		{
+			// Searches run on worker threads; stop promptly when cancelled
+			if((++nodes & 0xFFF) == 0 && (cancelled.get() || Thread.currentThread().isInterrupted())) {
+				cancelled.set(true);
+				throw new CancellationException("Search cancelled");
+			}
+
+			// Only the side that just moved can have completed a line
+			if(counters.getWinner() != -1) {
+				return depth - WIN_SCORE; // Prefer slower losses (and quicker wins)
+			}
+			if(counters.isFull()) {
+				return 0; // Draw
+			}
+			// Plies left below this node: the depth limit or the empty cells
+			int remaining = Math.min(searchDepth - depth - 1, geometry.getCellCount() - counters.getMoveCount());
+			if(remaining <= 0) {
+				// Open lines weighted by how many marks they hold
+				return counters.openLineScore(side);
+			}
+
+			// Probe the cache under the canonical orientation of this position.
+			// Values are only reused at the same remaining depth, so the result
+			// does not depend on which thread or search filled the cache.
+			long xBits = position.bits(Position.X);
+			long oBits = position.bits(Position.O);
+			int t = symmetry.canonicalTransform(xBits, oBits);
+			long canonicalX = symmetry.transform(t, xBits);
+			long canonicalO = symmetry.transform(t, oBits);
+			long entry = cache.probe(canonicalX, canonicalO);
+			int cachedMove = -1;
+			if(entry != TranspositionCache.MISS) {
+				if(TranspositionCache.depth(entry) == remaining) {
+					int value = fromCache(TranspositionCache.value(entry), depth);
+					int bound = TranspositionCache.bound(entry);
+					if(bound == TranspositionCache.EXACT
+						|| (bound == TranspositionCache.LOWER && value >= beta)
+						|| (bound == TranspositionCache.UPPER && value <= alpha)) {
+						return value;
+					}
+				}
+				cachedMove = symmetry.unmapCell(t, TranspositionCache.move(entry));
+			}
+
+			int[] moves = moveLists[depth];
+			int count = orderMoves(moves, cachedMove, killerMoves[depth]);
+
+			int originalAlpha = alpha;
+			int best = -INFINITY;
+			int bestMove = -1;
+			for(int i = 0; i < count; i++) {
+				// Young brothers wait for the eldest, then run in parallel
+				if(i == 1 && depth < splitDepth && splitPool != null) {
+					List<SplitTask> brothers = new ArrayList<>();
+					for(int j = 1; j < count; j++) {
+						Search brother = new Search(position.copy(), cancelled, splitPool);
+						brothers.add(new SplitTask(brother, moves[j], depth, alpha, beta, side));
+					}
+					ForkJoinTask.invokeAll(brothers);
+					for(SplitTask brother : brothers) {
+						int score = brother.join();
+						nodes += brother.search.nodes;
+						if(score > best) {
+							best = score;
+							bestMove = brother.cell;
+						}
+					}
+					if(best >= beta) {
+						killerMoves[depth] = bestMove;
+					}
+					break;
+				}
+
+				int cell = moves[i];
+				play(cell, side);
+				int score = -negamax(depth + 1, -beta, -alpha, Position.opponent(side));
+				undo(cell, side);
+
+				if(score > best) {
+					best = score;
+					bestMove = cell;
+					if(score > alpha) {
+						alpha = score;
+					}
+					if(alpha >= beta) {
+						killerMoves[depth] = cell;
+						break;
+					}
+				}
+			}
+
+			int bound = best <= originalAlpha ? TranspositionCache.UPPER
+				: best >= beta ? TranspositionCache.LOWER : TranspositionCache.EXACT;
+			cache.store(canonicalX, canonicalO, toCache(best, depth), bound, symmetry.mapCell(t, bestMove), remaining);
+			return best;
+		}
+
+		// Cached best move first, then the killer, then the static order
+		private int orderMoves(int[] moves, int cachedMove, int killer)
+		{
+			int count = 0;
+			long tried = position.occupied();
+			for(int i = -2; i < moveOrder.length; i++) {
+				int cell = i == -2 ? cachedMove : i == -1 ? killer : moveOrder[i];
+				if(cell < 0 || (tried & (1L << cell)) != 0) {
+					continue;
+				}
+				tried |= 1L << cell;
+				moves[count++] = cell;
+			}
+			return count;
+		}
+	}
+
+	// Win and loss scores are cached as seen from depth 0, so they can be
+	// reused wherever the same position turns up in the tree
+	private static int toCache(int score, int depth)
+	{
+		return score > WIN_THRESHOLD ? score + depth : score < -WIN_THRESHOLD ? score - depth : score;
+	}
+
+	private static int fromCache(int score, int depth)
+	{
+		return score > WIN_THRESHOLD ? score - depth : score < -WIN_THRESHOLD ? score + depth : score;
+	}
+}
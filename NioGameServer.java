@@ -0,0 +1,364 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Multiplayer server on non-blocking sockets:
+//   java NioGameServer [--port 7777] [--selectors N]
+// A few selector threads (one per core by default) each own a share of the
+// connections; the first also accepts new ones and hands them out in turn.
+// Nothing blocks on a socket: reads are split into WireProtocol frames for
+// each connection's ServerSession, and replies are queued on the connection
+// and written when its selector thread gets to them. A connection that
+// stops reading is dropped once too much output has piled up for it, so a
+// slow client cannot hold up anybody else.
+final class NioGameServer implements GameServer
+{
+	// Unsent output a connection may build up before it is dropped
+	private static final int MAX_PENDING_BYTES = 64 * 1024;
+
+	private final GameHall hall = new GameHall();
+	private final ServerSocketChannel server;
+	private final Loop[] loops;
+	private final AtomicInteger connections = new AtomicInteger();
+	private int nextLoop = 0;
+
+	NioGameServer(int port, int selectors) throws IOException
+	{
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port), 1024);
+		server.configureBlocking(false);
+		loops = new Loop[Math.max(1, selectors)];
+		for(int i = 0; i < loops.length; i++) {
+			loops[i] = new Loop(i);
+		}
+		server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		int port = 7777;
+		int selectors = Runtime.getRuntime().availableProcessors();
+		try {
+			for(int i = 0; i < args.length; i += 2) {
+				if(i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + args[i]);
+				}
+				switch(args[i]) {
+					case "--port": port = Integer.parseInt(args[i + 1]); break;
+					case "--selectors": selectors = Integer.parseInt(args[i + 1]); break;
+					default: throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java NioGameServer [--port 7777] [--selectors N]");
+			System.exit(2);
+		}
+
+		NioGameServer server = new NioGameServer(port, selectors);
+		server.start();
+		System.out.println("Serving on port " + server.getPort() + " with " + server.describe());
+		server.report();
+	}
+
+	public void start()
+	{
+		for(Loop loop : loops) {
+			loop.thread.start();
+		}
+	}
+
+	public int getPort()
+	{
+		return server.socket().getLocalPort();
+	}
+
+	public GameHall getHall()
+	{
+		return hall;
+	}
+
+	public int getConnectionCount()
+	{
+		return connections.get();
+	}
+
+	public String describe()
+	{
+		return loops.length + (loops.length == 1 ? " selector thread" : " selector threads");
+	}
+
+	public void close() throws IOException
+	{
+		for(Loop loop : loops) {
+			loop.thread.interrupt();
+			loop.selector.wakeup();
+		}
+		server.close();
+		hall.close();
+	}
+
+	// One selector thread and the connections registered with it
+	private final class Loop implements Runnable
+	{
+		final Selector selector;
+		final Thread thread;
+		// Connections handed over by the acceptor, and ones with output to write
+		final Queue<SocketChannel> added = new ConcurrentLinkedQueue<>();
+		final Queue<Connection> dirty = new ConcurrentLinkedQueue<>();
+		final ByteBuffer readBuffer = ByteBuffer.allocateDirect(16 * 1024);
+
+		Loop(int index) throws IOException
+		{
+			selector = Selector.open();
+			thread = new Thread(this, "selector-" + index);
+			thread.setDaemon(true);
+		}
+
+		public void run()
+		{
+			try {
+				while(!Thread.currentThread().isInterrupted()) {
+					selector.select();
+					for(SocketChannel channel; (channel = added.poll()) != null; ) {
+						register(channel);
+					}
+					for(SelectionKey key : selector.selectedKeys()) {
+						if(!key.isValid()) {
+							continue;
+						}
+						if(key.isAcceptable()) {
+							accept();
+						} else {
+							handle((Connection)key.attachment(), key);
+						}
+					}
+					selector.selectedKeys().clear();
+					for(Connection connection; (connection = dirty.poll()) != null; ) {
+						handle(connection, null);
+					}
+				}
+			} catch(IOException e) {
+				System.err.println(thread.getName() + " stopped: " + e.getMessage());
+			} finally {
+				try {
+					for(SelectionKey key : selector.keys()) {
+						key.channel().close();
+					}
+					selector.close();
+				} catch(IOException e) {
+					// Shutting down anyway
+				}
+			}
+		}
+
+		// Reads and writes what the key is ready for, or only flushes when
+		// there is no key. A failure costs only the connection it happened on
+		private void handle(Connection connection, SelectionKey key)
+		{
+			try {
+				if(key == null) {
+					connection.flush();
+					return;
+				}
+				if(key.isReadable()) {
+					connection.read();
+				}
+				if(key.isValid() && key.isWritable()) {
+					connection.flush();
+				}
+			} catch(RuntimeException e) {
+				System.err.println(thread.getName() + " dropped a connection: " + e);
+				try {
+					connection.closeNow();
+				} catch(RuntimeException ignored) {
+					// Closed as far as this loop is concerned
+				}
+			}
+		}
+
+		private void accept()
+		{
+			while(true) {
+				SocketChannel channel;
+				try {
+					channel = server.accept();
+				} catch(IOException e) {
+					// Such as running out of file descriptors; tried again on
+					// the next select
+					System.err.println("Accept failed: " + e.getMessage());
+					return;
+				}
+				if(channel == null) {
+					return;
+				}
+				Loop loop = loops[nextLoop];
+				nextLoop = (nextLoop + 1) % loops.length;
+				if(loop == this) {
+					register(channel);
+				} else {
+					loop.added.add(channel);
+					loop.selector.wakeup();
+				}
+			}
+		}
+
+		private void register(SocketChannel channel)
+		{
+			try {
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+				Connection connection = new Connection(this, channel);
+				connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+				connections.incrementAndGet();
+			} catch(IOException e) {
+				try {
+					channel.close();
+				} catch(IOException ignored) {
+					// Already gone
+				}
+			}
+		}
+	}
+
+	// One client socket; everything but send() and close() runs on its loop
+	private final class Connection implements ServerSession.Connection
+	{
+		final Loop loop;
+		final SocketChannel channel;
+		final ServerSession session = new ServerSession(hall, this);
+		SelectionKey key;
+
+		// Bytes of an incomplete frame carried over between reads
+		private final byte[] incoming = new byte[WireProtocol.MAX_FRAME];
+		private int incomingLength = 0;
+
+		private final Queue<ByteBuffer> output = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger pendingBytes = new AtomicInteger();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean closeRequested = false;
+		private volatile boolean overflowed = false;
+		private volatile boolean closed = false;
+
+		Connection(Loop loop, SocketChannel channel)
+		{
+			this.loop = loop;
+			this.channel = channel;
+		}
+
+		public void send(byte[] frame)
+		{
+			if(closed || overflowed) {
+				return;
+			}
+			if(pendingBytes.addAndGet(frame.length) > MAX_PENDING_BYTES) {
+				overflowed = true; // Dropped without flushing what is queued
+				schedule();
+				return;
+			}
+			output.add(ByteBuffer.wrap(frame));
+			schedule();
+		}
+
+		public void close()
+		{
+			closeRequested = true;
+			schedule();
+		}
+
+		// Gets the loop to flush or close this connection soon
+		private void schedule()
+		{
+			if(scheduled.compareAndSet(false, true)) {
+				loop.dirty.add(this);
+				if(Thread.currentThread() != loop.thread) {
+					loop.selector.wakeup();
+				}
+			}
+		}
+
+		void read()
+		{
+			ByteBuffer buffer = loop.readBuffer;
+			buffer.clear();
+			int count;
+			try {
+				count = channel.read(buffer);
+			} catch(IOException e) {
+				count = -1;
+			}
+			if(count < 0) {
+				closeNow();
+				return;
+			}
+			buffer.flip();
+			while(buffer.hasRemaining()) {
+				incoming[incomingLength++] = buffer.get();
+				int length = WireProtocol.frameLength(incoming, incomingLength);
+				if(length < 0 || length > incoming.length) {
+					closeNow(); // Not a protocol frame
+					return;
+				}
+				if(incomingLength == length) {
+					session.receive(incoming);
+					incomingLength = 0;
+				}
+			}
+		}
+
+		void flush()
+		{
+			scheduled.set(false);
+			if(closed) {
+				return;
+			}
+			if(overflowed) {
+				closeNow();
+				return;
+			}
+			try {
+				for(ByteBuffer buffer; (buffer = output.peek()) != null; ) {
+					int written = channel.write(buffer);
+					pendingBytes.addAndGet(-written);
+					if(buffer.hasRemaining()) {
+						key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+						return;
+					}
+					output.poll();
+				}
+				key.interestOps(SelectionKey.OP_READ);
+			} catch(IOException | CancelledKeyException e) {
+				closeNow();
+				return;
+			}
+			if(closeRequested) {
+				closeNow();
+			}
+		}
+
+		private void closeNow()
+		{
+			if(closed) {
+				return;
+			}
+			closed = true;
+			connections.decrementAndGet();
+			key.cancel();
+			try {
+				channel.close();
+			} catch(IOException e) {
+				// Already gone
+			}
+			session.disconnected();
+		}
+	}
+}
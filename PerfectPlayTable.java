@@ -0,0 +1,132 @@
+// Solved table of every legal position on the standard 3x3 board, built once at startup.
+// Each position maps to its minimax value and the set of optimal moves, so
+// the computer opponent and the hint system answer with a single lookup.
+final class PerfectPlayTable
+{
+	private static final int SIZE = 19683; // 3^9 base-3 board encodings
+	private static final byte UNSOLVED = Byte.MIN_VALUE;
+
+	// Base-3 weight of every 9-bit mask, so index = BASE3[x] + 2 * BASE3[o]
+	private static final int[] BASE3 = new int[1 << 9];
+
+	static {
+		for(int mask = 1; mask < BASE3.length; mask++) {
+			int cell = Integer.numberOfTrailingZeros(mask);
+			BASE3[mask] = BASE3[mask & (mask - 1)] + pow3(cell);
+		}
+	}
+
+	private static final PerfectPlayTable INSTANCE = new PerfectPlayTable();
+
+	// Value for the side to move, on the same scale as the minimax search
+	private final byte[] values = new byte[SIZE];
+	// Bit i is set when cell i is an optimal move
+	private final short[] bestMoves = new short[SIZE];
+	private int positionCount = 0;
+	private final long buildNanos;
+
+	private PerfectPlayTable()
+	{
+		long start = System.nanoTime();
+		java.util.Arrays.fill(values, UNSOLVED);
+		solve(0, 0, Position.X);
+		buildNanos = System.nanoTime() - start;
+	}
+
+	static PerfectPlayTable get()
+	{
+		return INSTANCE;
+	}
+
+	boolean contains(Position position)
+	{
+		return position.getGeometry().isStandard() && values[indexOf(position)] != UNSOLVED;
+	}
+
+	// Lowest optimal cell (the same one the search picks), or -1 if none
+	int getBestMove(Position position)
+	{
+		int moves = bestMoves[indexOf(position)];
+		return moves == 0 ? -1 : Integer.numberOfTrailingZeros(moves);
+	}
+
+	int getBestMoves(Position position)
+	{
+		return bestMoves[indexOf(position)];
+	}
+
+	int getValue(Position position)
+	{
+		return values[indexOf(position)];
+	}
+
+	int getPositionCount()
+	{
+		return positionCount;
+	}
+
+	double getBuildMillis()
+	{
+		return buildNanos / 1_000_000.0;
+	}
+
+	// Bytes held by the lookup arrays
+	long getFootprintBytes()
+	{
+		return values.length + bestMoves.length * 2L + BASE3.length * 4L;
+	}
+
+	private static int indexOf(Position position)
+	{
+		return BASE3[(int)position.bits(Position.X)] + 2 * BASE3[(int)position.bits(Position.O)];
+	}
+
+	private static int pow3(int exponent)
+	{
+		int result = 1;
+		for(int i = 0; i < exponent; i++) {
+			result *= 3;
+		}
+		return result;
+	}
+
+	// Negamax over the full game tree with memoization; returns the value for
+	// the side to move as seen from depth 0, like MinimaxEngine scores
+	private int solve(int xBits, int oBits, int side)
+	{
+		int index = BASE3[xBits] + 2 * BASE3[oBits];
+		if(values[index] != UNSOLVED) {
+			return values[index];
+		}
+		positionCount++;
+
+		Position position = new Position(BoardGeometry.STANDARD, xBits, oBits);
+		int value;
+		int moves = 0;
+		if(position.hasWon(Position.opponent(side))) {
+			value = -10;
+		} else if(position.isFull()) {
+			value = 0;
+		} else {
+			int best = Integer.MIN_VALUE;
+			for(int free = (int)position.emptyCells(); free != 0; free &= free - 1) {
+				int cell = Integer.numberOfTrailingZeros(free);
+				int score = side == Position.X
+					? -solve(xBits | (1 << cell), oBits, Position.O)
+					: -solve(xBits, oBits | (1 << cell), Position.X);
+				if(score > best) {
+					best = score;
+					moves = 1 << cell;
+				} else if(score == best) {
+					moves |= 1 << cell;
+				}
+			}
+			// One ply further from the root: wins get slower, losses later
+			value = best > 0 ? best - 1 : best < 0 ? best + 1 : 0;
+		}
+
+		values[index] = (byte)value;
+		bestMoves[index] = (short)moves;
+		return value;
+	}
+}
@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Win, loss and draw counts plus the win streaks of one player, safe to
+// update from any number of threads. The counts are striped LongAdders, so
+// threads finishing games at the same time do not fight over one word. The
+// two streaks depend on the order of results and share one AtomicLong
+// (current streak in the low half, best in the high half), so they always
+// change together.
+// snapshot() gives a consistent view for display: the total is derived from
+// the three outcome counts rather than kept apart, and the best streak is
+// never below the current one.
+final class PlayerStats
+{
+	private final LongAdder wins = new LongAdder();
+	private final LongAdder losses = new LongAdder();
+	private final LongAdder draws = new LongAdder();
+	private final LongAdder playMillis = new LongAdder();
+	private final AtomicLong streaks = new AtomicLong();
+
+	void recordWin()
+	{
+		wins.increment();
+		long current, next;
+		do {
+			current = streaks.get();
+			long streak = (current & 0xFFFFFFFFL) + 1;
+			long best = Math.max(current >>> 32, streak);
+			next = best << 32 | streak;
+		} while(!streaks.compareAndSet(current, next));
+	}
+
+	void recordLoss()
+	{
+		losses.increment();
+		endStreak();
+	}
+
+	void recordDraw()
+	{
+		draws.increment();
+		endStreak();
+	}
+
+	// Keeps the best streak, clears the current one
+	private void endStreak()
+	{
+		long current;
+		do {
+			current = streaks.get();
+		} while((current & 0xFFFFFFFFL) != 0 && !streaks.compareAndSet(current, current & ~0xFFFFFFFFL));
+	}
+
+	void addPlayTime(long millis)
+	{
+		playMillis.add(millis);
+	}
+
+	// Not atomic with updates still running; call it between sessions
+	void reset()
+	{
+		wins.reset();
+		losses.reset();
+		draws.reset();
+		playMillis.reset();
+		streaks.set(0);
+	}
+
+	Snapshot snapshot()
+	{
+		long packed = streaks.get();
+		return new Snapshot(wins.sum(), losses.sum(), draws.sum(),
+			(int)(packed & 0xFFFFFFFFL), (int)(packed >>> 32), playMillis.sum());
+	}
+
+	// Figures read at one moment, for showing or saving
+	static final class Snapshot
+	{
+		final long totalGames;
+		final long wins;
+		final long losses;
+		final long draws;
+		final int winStreak;
+		final int bestWinStreak;
+		final long playMillis;
+
+		Snapshot(long wins, long losses, long draws, int winStreak, int bestWinStreak, long playMillis)
+		{
+			this.totalGames = wins + losses + draws;
+			this.wins = wins;
+			this.losses = losses;
+			this.draws = draws;
+			this.winStreak = winStreak;
+			this.bestWinStreak = bestWinStreak;
+			this.playMillis = playMillis;
+		}
+
+		// Percentage of games won, 0 before any game
+		double winRate()
+		{
+			return totalGames == 0 ? 0 : wins * 100.0 / totalGames;
+		}
+	}
+}
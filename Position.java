@@ -0,0 +1,136 @@
+// Bitboard position used by the AI search.
+// X and O are packed into two masks (bit i = cell i, row-major), so win
+// tests become a mask-and-compare against the line masks of the geometry.
+final class Position
+{
+	static final int X = 0;
+	static final int O = 1;
+
+	private final BoardGeometry geometry;
+	private long xBits;
+	private long oBits;
+
+	Position()
+	{
+		this(BoardGeometry.STANDARD);
+	}
+
+	Position(BoardGeometry geometry)
+	{
+		this.geometry = geometry;
+	}
+
+	Position(BoardGeometry geometry, long xBits, long oBits)
+	{
+		this.geometry = geometry;
+		this.xBits = xBits;
+		this.oBits = oBits;
+	}
+
+	// Build a position from board labels ("X", "O" or "")
+	static Position fromLabels(BoardGeometry geometry, String[] labels)
+	{
+		Position position = new Position(geometry);
+		for(int i = 0; i < labels.length; i++) {
+			if(labels[i].equals("X")) {
+				position.place(i, X);
+			} else if(labels[i].equals("O")) {
+				position.place(i, O);
+			}
+		}
+		return position;
+	}
+
+	static int sideOf(String player)
+	{
+		return player.equals("X") ? X : O;
+	}
+
+	static int opponent(int side)
+	{
+		return side ^ 1;
+	}
+
+	Position copy()
+	{
+		return new Position(geometry, xBits, oBits);
+	}
+
+	BoardGeometry getGeometry()
+	{
+		return geometry;
+	}
+
+	long bits(int side)
+	{
+		return side == X ? xBits : oBits;
+	}
+
+	long occupied()
+	{
+		return xBits | oBits;
+	}
+
+	long emptyCells()
+	{
+		return ~(xBits | oBits) & geometry.getFullMask();
+	}
+
+	boolean isEmpty(int cell)
+	{
+		return ((xBits | oBits) & (1L << cell)) == 0;
+	}
+
+	void place(int cell, int side)
+	{
+		if(side == X) {
+			xBits |= 1L << cell;
+		} else {
+			oBits |= 1L << cell;
+		}
+	}
+
+	// Undo a placement made with place()
+	void clear(int cell)
+	{
+		long mask = ~(1L << cell);
+		xBits &= mask;
+		oBits &= mask;
+	}
+
+	// Empty the whole board
+	void clearAll()
+	{
+		xBits = 0;
+		oBits = 0;
+	}
+
+	boolean hasWon(int side)
+	{
+		long bits = side == X ? xBits : oBits;
+		for(long line : geometry.getLineMasks()) {
+			if((bits & line) == line) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Win test limited to the lines through the cell just played
+	boolean hasWonThrough(int cell, int side)
+	{
+		long bits = side == X ? xBits : oBits;
+		long[] lineMasks = geometry.getLineMasks();
+		for(int line : geometry.getCellLines()[cell]) {
+			if((bits & lineMasks[line]) == lineMasks[line]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	boolean isFull()
+	{
+		return (xBits | oBits) == geometry.getFullMask();
+	}
+}
@@ -0,0 +1,255 @@
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless self-play between two computer players, to check AI strength and
+// to stress the engines:
+//   java SelfPlay [--a Easy] [--b Expert] [--games 100000] [--threads N]
+//                 [--size 3] [--win 3] [--mcts-playouts 2000] [--no-swap]
+//                 [--seed S] [--records] [--journal FILE]
+// Players are difficulty levels or Random. By default they swap X and O
+// every game. Each worker thread has its own players, model and tallies;
+// the tallies are only added up once every game is done. Every game is
+// seeded from the run seed and its number, so a run can be replayed
+// exactly with --seed and any thread count. With --records every game is
+// also kept in memory as a packed move list; with --journal every game is
+// appended to a GameJournal file shared by the workers.
+final class SelfPlay
+{
+	// Games a worker claims from the shared counter at a time
+	private static final int CHUNK = 256;
+
+	private String playerA = "Easy";
+	private String playerB = "Expert";
+	private long games = 100000;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int size = 3;
+	private int winLength = 3;
+	private long mctsPlayouts = 2000;
+	private boolean swap = true;
+	private long seed = new SplittableRandom().nextLong();
+	private boolean keepRecords = false;
+	private String journalFile = null;
+	private GameJournal journal;
+
+	public static void main(String[] args) throws Exception
+	{
+		SelfPlay selfPlay = new SelfPlay();
+		try {
+			selfPlay.parse(args);
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java SelfPlay [--a Easy] [--b Expert] [--games 100000] [--threads N]");
+			System.err.println("                     [--size 3] [--win 3] [--mcts-playouts 2000] [--no-swap] [--seed S]");
+			System.err.println("                     [--records] [--journal FILE]");
+			System.err.println("Players: Random, " + String.join(", ", ComputerPlayer.DIFFICULTIES));
+			System.exit(2);
+		}
+		selfPlay.run();
+	}
+
+	private void parse(String[] args)
+	{
+		for(int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if(option.equals("--no-swap")) {
+				swap = false;
+				continue;
+			}
+			if(option.equals("--records")) {
+				keepRecords = true;
+				continue;
+			}
+			if(i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + option);
+			}
+			String value = args[++i];
+			try {
+				switch(option) {
+					case "--a": playerA = value; break;
+					case "--b": playerB = value; break;
+					case "--games": games = Long.parseLong(value); break;
+					case "--threads": threads = Integer.parseInt(value); break;
+					case "--size": size = Integer.parseInt(value); break;
+					case "--win": winLength = Integer.parseInt(value); break;
+					case "--mcts-playouts": mctsPlayouts = Long.parseLong(value); break;
+					case "--seed": seed = Long.parseLong(value); break;
+					case "--journal": journalFile = value; break;
+					default: throw new IllegalArgumentException("Unknown option " + option);
+				}
+			} catch(NumberFormatException e) {
+				throw new IllegalArgumentException("Not a number for " + option + ": " + value);
+			}
+		}
+		for(String player : new String[] {playerA, playerB}) {
+			if(!ComputerPlayer.isDifficulty(player)) {
+				throw new IllegalArgumentException("Unknown player " + player);
+			}
+		}
+		if(games < 1 || threads < 1 || mctsPlayouts < 1) {
+			throw new IllegalArgumentException("Games, threads and playouts must be positive");
+		}
+		BoardGeometry.of(size, winLength); // Validates the board
+	}
+
+	private void run() throws Exception
+	{
+		BoardGeometry geometry = BoardGeometry.of(size, winLength);
+		System.out.println("Self-play: " + playerA + " (A) vs " + playerB + " (B), " + geometry
+			+ ", " + games + " games on " + threads + (threads == 1 ? " thread" : " threads") + ", seed " + seed);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "self-play");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if(journalFile != null) {
+			journal = new GameJournal(Paths.get(journalFile), 4096, 1000);
+		}
+		AtomicLong claimed = new AtomicLong();
+		List<Callable<Tally>> workers = new ArrayList<>();
+		for(int i = 0; i < threads; i++) {
+			workers.add(() -> playGames(geometry, claimed));
+		}
+
+		long start = System.nanoTime();
+		Tally total = new Tally(keepRecords ? new GameRecordList(geometry) : null);
+		long fewest = Long.MAX_VALUE;
+		long most = 0;
+		try {
+			for(Future<Tally> result : pool.invokeAll(workers)) {
+				Tally tally = result.get();
+				total.add(tally);
+				fewest = Math.min(fewest, tally.games);
+				most = Math.max(most, tally.games);
+			}
+		} finally {
+			pool.shutdownNow();
+			if(journal != null) {
+				journal.close();
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(String.format("A (%s): %.2f%% wins, %.2f%% draws, %.2f%% losses",
+			playerA, percent(total.aWins, total.games), percent(total.draws, total.games), percent(total.bWins, total.games)));
+		System.out.println(String.format("B (%s): %.2f%% wins, %.2f%% draws, %.2f%% losses",
+			playerB, percent(total.bWins, total.games), percent(total.draws, total.games), percent(total.aWins, total.games)));
+		System.out.println(String.format("X won %.2f%%, O won %.2f%%",
+			percent(total.xWins, total.games), percent(total.aWins + total.bWins - total.xWins, total.games)));
+		System.out.println(String.format("Average game length: %.2f moves", (double)total.moves / total.games));
+		System.out.println(String.format("Elapsed: %.2f s, %.0f games/s (%d to %d games per thread)",
+			seconds, total.games / seconds, fewest, most));
+		if(total.records != null) {
+			System.out.println(String.format("Records: %d games in %d KB, %d bytes per game",
+				total.records.size(), total.records.getFootprintBytes() / 1024, total.records.getStride() * 8));
+		}
+		if(journal != null) {
+			System.out.println("Journal: " + journalFile + " now holds " + journal.getGameCount() + " games");
+		}
+	}
+
+	// One worker: claims chunks of game numbers until all have been played
+	private Tally playGames(BoardGeometry geometry, AtomicLong claimed) throws java.io.IOException
+	{
+		// Single-threaded engines; the parallelism comes from the workers
+		MctsEngine mcts = new MctsEngine(geometry, 1);
+		mcts.setTimeBudgetMillis(0);
+		mcts.setIterationBudget(mctsPlayouts);
+		ComputerPlayer computer = new ComputerPlayer(
+			new MinimaxEngine(geometry, MinimaxEngine.defaultDepth(geometry), 1 << 16), mcts);
+		GameModel model = new GameModel(geometry);
+		Tally tally = new Tally(keepRecords ? new GameRecordList(geometry) : null);
+		int[] moves = new int[geometry.getCellCount()];
+		try {
+			long first;
+			while((first = claimed.getAndAdd(CHUNK)) < games) {
+				long last = Math.min(games, first + CHUNK);
+				for(long game = first; game < last; game++) {
+					boolean aPlaysX = !swap || (game & 1) == 0;
+					computer.setSeed(ComputerPlayer.gameSeed(seed, game));
+					model.startMatch(1);
+					while(!model.isGameOver()) {
+						int side = model.getSideToMove();
+						String player = (side == Position.X) == aPlaysX ? playerA : playerB;
+						model.play(computer.getMove(player, model.getPosition(), side));
+					}
+					tally.record(model.getWinner(), aPlaysX, model.getMoveCount());
+					if(tally.records != null || journal != null) {
+						for(int i = 0; i < model.getMoveCount(); i++) {
+							moves[i] = model.getMove(i);
+						}
+					}
+					if(tally.records != null) {
+						tally.records.add(moves, model.getMoveCount());
+					}
+					if(journal != null) {
+						journal.append(geometry, model.getWinner(), moves, model.getMoveCount());
+					}
+				}
+			}
+		} finally {
+			computer.shutdown();
+		}
+		return tally;
+	}
+
+	private static double percent(long count, long total)
+	{
+		return total == 0 ? 0 : count * 100.0 / total;
+	}
+
+	// Results of one worker
+	private static final class Tally
+	{
+		long games;
+		long moves;
+		long aWins;
+		long bWins;
+		long draws;
+		long xWins;
+		final GameRecordList records; // Null unless games are kept
+
+		Tally(GameRecordList records)
+		{
+			this.records = records;
+		}
+
+		void record(int winner, boolean aPlaysX, int length)
+		{
+			games++;
+			moves += length;
+			if(winner == -1) {
+				draws++;
+				return;
+			}
+			if(winner == Position.X) {
+				xWins++;
+			}
+			if((winner == Position.X) == aPlaysX) {
+				aWins++;
+			} else {
+				bWins++;
+			}
+		}
+
+		void add(Tally other)
+		{
+			games += other.games;
+			moves += other.moves;
+			aWins += other.aWins;
+			bWins += other.bWins;
+			draws += other.draws;
+			xWins += other.xWins;
+			if(records != null) {
+				records.addAll(other.records);
+			}
+		}
+	}
+}
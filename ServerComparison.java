@@ -0,0 +1,76 @@
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Runs the same LoadClient load against each server mode in this process:
+//   java ServerComparison [--players 2000] [--seconds 10] [--size 3] [--win 3]
+//                         [--selectors N] [--seed S] [--journal FILE] [--spectators N]
+// Both servers listen on ephemeral ports and are closed after their run;
+// --journal replays recorded games instead of random ones, and
+// --spectators adds connections watching the games.
+// Prints throughput and move latency percentiles side by side.
+final class ServerComparison
+{
+	public static void main(String[] args) throws Exception
+	{
+		int players = 2000;
+		double seconds = 10;
+		int size = 3;
+		int winLength = 3;
+		int selectors = Runtime.getRuntime().availableProcessors();
+		long seed = 1;
+		String journal = null;
+		int spectators = 0;
+		try {
+			for(int i = 0; i < args.length; i += 2) {
+				if(i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + args[i]);
+				}
+				String value = args[i + 1];
+				switch(args[i]) {
+					case "--players": players = Integer.parseInt(value); break;
+					case "--seconds": seconds = Double.parseDouble(value); break;
+					case "--size": size = Integer.parseInt(value); break;
+					case "--win": winLength = Integer.parseInt(value); break;
+					case "--selectors": selectors = Integer.parseInt(value); break;
+					case "--seed": seed = Long.parseLong(value); break;
+					case "--journal": journal = value; break;
+					case "--spectators": spectators = Integer.parseInt(value); break;
+					default: throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+			if(players < 2 || seconds <= 0) {
+				throw new IllegalArgumentException("Need at least two players and a positive duration");
+			}
+			BoardGeometry.of(size, winLength); // Validates the board
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java ServerComparison [--players 2000] [--seconds 10] [--size 3] [--win 3]");
+			System.err.println("                             [--selectors N] [--seed S] [--journal FILE]");
+			System.err.println("                             [--spectators N]");
+			System.exit(2);
+		}
+
+		BoardGeometry geometry = BoardGeometry.of(size, winLength);
+		List<LoadClient.GameScript> scripts = journal == null ? Collections.<LoadClient.GameScript>emptyList()
+			: LoadClient.loadScripts(Paths.get(journal), geometry, 1_000_000);
+		List<GameServer> servers = new ArrayList<>();
+		servers.add(new NioGameServer(0, selectors));
+		servers.add(new BlockingGameServer(0));
+
+		System.out.println(players + " players" + (spectators > 0 ? " and " + spectators + " spectators" : "") + " on " + size + "x" + size + " (" + winLength + " in a row), "
+			+ seconds + " s per server");
+		System.out.println(String.format("%-68s %10s %8s %8s %8s %7s", "Server", "moves/s", "p50 us", "p99 us", "p99.9 us", "errors"));
+		for(GameServer server : servers) {
+			LoadClient.Result result;
+			try(GameServer running = server) {
+				running.start();
+				result = LoadClient.run("localhost", running.getPort(), players, spectators, seconds, geometry, seed, scripts, false, false);
+			}
+			System.out.println(String.format("%-68s %10.0f %8d %8d %8d %7d", server.describe(), result.movesPerSecond(),
+				result.latency.percentile(50), result.latency.percentile(99), result.latency.percentile(99.9), result.errors));
+			Thread.sleep(500); // Lets the closed sockets drain
+		}
+	}
+}
@@ -0,0 +1,158 @@
+// One connected player, independent of how the server talks to sockets: the
+// transport feeds in each frame the client sends and delivers whatever the
+// session sends back. receive() is only called from one thread at a time,
+// but send() is also called by the opponent's thread when they move.
+final class ServerSession
+{
+	// The transport side of a session; both methods must be thread-safe and
+	// must not block. A sent frame may go to several connections and must
+	// not be changed
+	interface Connection
+	{
+		void send(byte[] frame);
+
+		void close();
+	}
+
+	private final GameHall hall;
+	private final Connection connection;
+
+	// Set by the hall, possibly on the opponent's thread
+	private volatile int side;
+	private volatile GameHall.Table table;
+	// The game this player is spectating, if any
+	private volatile SpectatorFeed watching;
+	// The player's place in the matchmaking queue, once they have joined
+	private volatile Matchmaker.Ticket ticket;
+	private volatile boolean gone = false;
+
+	ServerSession(GameHall hall, Connection connection)
+	{
+		this.hall = hall;
+		this.connection = connection;
+	}
+
+	void send(byte[] frame)
+	{
+		connection.send(frame);
+	}
+
+	void seat(GameHall.Table table, int side)
+	{
+		this.side = side;
+		this.table = table;
+	}
+
+	// True once the connection has closed
+	boolean isGone()
+	{
+		return gone;
+	}
+
+	// A whole frame, as long as WireProtocol.frameLength() says; the array
+	// may be reused once this returns
+	void receive(byte[] frame)
+	{
+		switch(frame[0]) {
+			case WireProtocol.JOIN:
+				join(frame[1], frame[2], WireProtocol.joinRating(frame), WireProtocol.joinAcceptsComputer(frame));
+				break;
+			case WireProtocol.MOVE:
+				move(WireProtocol.game(frame), WireProtocol.moveCell(frame));
+				break;
+			case WireProtocol.LEAVE:
+				leave();
+				break;
+			case WireProtocol.SYNC:
+				sync();
+				break;
+			case WireProtocol.WATCH:
+				watch(WireProtocol.game(frame));
+				break;
+			case WireProtocol.UNWATCH:
+				unwatch();
+				break;
+			default:
+				send(WireProtocol.error(WireProtocol.UNKNOWN_FRAME));
+		}
+	}
+
+	private void join(int size, int winLength, int rating, boolean acceptsComputer)
+	{
+		GameHall.Table current = table;
+		if(current != null && !current.isOver()) {
+			send(WireProtocol.error(WireProtocol.ALREADY_IN_GAME));
+			return;
+		}
+		BoardGeometry geometry;
+		try {
+			geometry = BoardGeometry.of(size, winLength);
+		} catch(IllegalArgumentException e) {
+			send(WireProtocol.error(WireProtocol.BAD_BOARD));
+			return;
+		}
+		hall.cancel(ticket);
+		ticket = hall.join(this, geometry, rating, acceptsComputer);
+		if(gone) {
+			leave(); // Disconnected while joining
+		}
+	}
+
+	private void move(int game, int cell)
+	{
+		GameHall.Table current = table;
+		if(current == null) {
+			send(WireProtocol.error(WireProtocol.NOT_IN_GAME));
+		} else if(game != current.id) {
+			send(WireProtocol.error(WireProtocol.WRONG_GAME));
+		} else {
+			current.play(side, cell);
+		}
+	}
+
+	private void sync()
+	{
+		GameHall.Table current = table;
+		if(current == null) {
+			send(WireProtocol.error(WireProtocol.NOT_IN_GAME));
+		} else {
+			current.sendBoard(side);
+		}
+	}
+
+	private void watch(int game)
+	{
+		unwatch();
+		watching = hall.watch(this, game);
+		if(watching == null) {
+			send(WireProtocol.error(WireProtocol.NO_SUCH_GAME));
+		}
+	}
+
+	private void unwatch()
+	{
+		SpectatorFeed feed = watching;
+		if(feed != null) {
+			feed.removeWatcher(this);
+			watching = null;
+		}
+	}
+
+	private void leave()
+	{
+		if(!hall.cancel(ticket)) {
+			GameHall.Table current = table;
+			if(current != null) {
+				current.forfeit(side);
+			}
+		}
+	}
+
+	// The connection is gone; an unfinished game is forfeited
+	void disconnected()
+	{
+		gone = true;
+		unwatch();
+		leave();
+	}
+}
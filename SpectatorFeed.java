@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Live updates of one game or match for any number of spectators. The
+// thread playing the game only appends a byte per event under a short
+// lock; the hall's ticker publishes what piled up once per tick as DELTA
+// frames shared by every watcher, so a game costs its players the same
+// whether nobody or thousands are watching. Entries go out in the order
+// they happened, so a finished round's marks and result always come
+// before its NEXT_ROUND. Watchers are sessions whose send() never blocks:
+// one that stops reading is dropped by its server, not waited for. A new
+// watcher gets a snapshot (BOARD and MATCH) on the next tick, taken
+// together with that tick's deltas, so it sees every later event exactly
+// once.
+final class SpectatorFeed implements GameListener
+{
+	final int id;
+	private final GameHall hall;
+	private final BoardGeometry geometry;
+
+	// Watchers that have had their snapshot; only the ticker adds to it,
+	// holding the lock
+	private final Set<ServerSession> watchers = ConcurrentHashMap.newKeySet();
+
+	// Guarded by this: events since the last tick, the state after them, the
+	// watchers still waiting for a snapshot and those being sent theirs
+	private byte[] pending = new byte[16];
+	private int pendingCount = 0;
+	private List<ServerSession> joining = new ArrayList<>();
+	private List<ServerSession> arriving = new ArrayList<>();
+	private boolean resync = false; // A new match: everybody gets a snapshot
+	private boolean scheduled = false;
+	private boolean finished = false;
+	private long xBits;
+	private long oBits;
+	private int round;
+	private int rounds;
+	private int xWins;
+	private int oWins;
+	private int draws;
+	private int result;
+
+	// Call on the thread that drives the model, before anything is played
+	// that should be seen
+	SpectatorFeed(GameHall hall, int id, GameModel model)
+	{
+		this.hall = hall;
+		this.id = id;
+		this.geometry = model.getGeometry();
+		Position position = model.getPosition();
+		xBits = position.bits(Position.X);
+		oBits = position.bits(Position.O);
+		copyScore(model);
+		result = model.isGameOver() ? WireProtocol.result(model.getWinner(), false) : WireProtocol.NO_RESULT;
+		finished = model.isMatchOver();
+	}
+
+	private void copyScore(GameModel model)
+	{
+		round = model.getCurrentRound();
+		rounds = model.getTotalRounds();
+		xWins = model.getWins(Position.X);
+		oWins = model.getWins(Position.O);
+		draws = model.getDraws();
+	}
+
+	int getWatcherCount()
+	{
+		return watchers.size();
+	}
+
+	void addWatcher(ServerSession session)
+	{
+		synchronized(this) {
+			joining.add(session);
+			schedule();
+		}
+	}
+
+	// Under the lock, so a watcher leaving while it is sent its snapshot is
+	// not added afterwards
+	synchronized void removeWatcher(ServerSession session)
+	{
+		joining.remove(session);
+		arriving.remove(session);
+		watchers.remove(session);
+	}
+
+	// GameListener callbacks, on the thread playing the game
+
+	public synchronized void movePlayed(GameModel game, int cell, int side)
+	{
+		if(side == Position.X) {
+			xBits |= 1L << cell;
+		} else {
+			oBits |= 1L << cell;
+		}
+		append(WireProtocol.mark(cell, side));
+	}
+
+	public synchronized void gameEnded(GameModel game, int winner)
+	{
+		copyScore(game);
+		result = WireProtocol.result(winner, false);
+		append((byte)(WireProtocol.RESULT_ENTRY | result));
+		if(game.isMatchOver()) {
+			finished = true;
+		}
+	}
+
+	public synchronized void boardCleared(GameModel game)
+	{
+		xBits = 0;
+		oBits = 0;
+		result = WireProtocol.NO_RESULT;
+		copyScore(game);
+		if(game.getRoundsPlayed() == 0) {
+			resync = true; // Scores were reset too
+			pendingCount = 0;
+			schedule();
+		} else {
+			append((byte)WireProtocol.NEXT_ROUND);
+		}
+	}
+
+	// The player on the losing side left a hall game
+	synchronized void forfeit(int winner)
+	{
+		if(finished) {
+			return;
+		}
+		result = WireProtocol.result(winner, true);
+		append((byte)(WireProtocol.RESULT_ENTRY | result));
+		finished = true;
+	}
+
+	// Nothing more will be played, such as when a window starts another match
+	synchronized void finish()
+	{
+		finished = true;
+		schedule();
+	}
+
+	private void append(byte entry)
+	{
+		if(pendingCount == pending.length) {
+			pending = Arrays.copyOf(pending, pendingCount * 2);
+		}
+		pending[pendingCount++] = entry;
+		schedule();
+	}
+
+	private void schedule()
+	{
+		if(!scheduled) {
+			scheduled = true;
+			hall.schedule(this);
+		}
+	}
+
+	// On the ticker: sends what happened since the last tick
+	void publish()
+	{
+		byte[] events;
+		ServerSession[] newcomers;
+		boolean everyone;
+		byte[][] snapshot = null;
+		boolean done;
+		synchronized(this) {
+			scheduled = false;
+			events = Arrays.copyOf(pending, pendingCount);
+			pendingCount = 0;
+			newcomers = joining.toArray(new ServerSession[joining.size()]);
+			if(!joining.isEmpty()) {
+				arriving = joining;
+				joining = new ArrayList<>();
+			}
+			everyone = resync;
+			resync = false;
+			if(everyone || newcomers.length > 0) {
+				snapshot = new byte[][] {
+					WireProtocol.board(id, new Position(geometry, xBits, oBits)),
+					WireProtocol.match(id, round, rounds, xWins, oWins, draws, result)
+				};
+			}
+			done = finished;
+		}
+
+		if(everyone) {
+			sendAll(snapshot);
+		} else if(events.length > 0) {
+			byte[][] frames = new byte[(events.length + WireProtocol.MAX_DELTA_ENTRIES - 1) / WireProtocol.MAX_DELTA_ENTRIES][];
+			for(int i = 0; i < frames.length; i++) {
+				int from = i * WireProtocol.MAX_DELTA_ENTRIES;
+				frames[i] = WireProtocol.delta(id, events, from, Math.min(events.length, from + WireProtocol.MAX_DELTA_ENTRIES));
+			}
+			sendAll(frames);
+		}
+		for(ServerSession session : newcomers) {
+			for(byte[] frame : snapshot) {
+				session.send(frame);
+			}
+		}
+		if(newcomers.length > 0) {
+			// Those that left meanwhile are no longer in arriving
+			synchronized(this) {
+				watchers.addAll(arriving);
+				arriving = new ArrayList<>();
+			}
+		}
+		if(done) {
+			hall.retire(this);
+		}
+	}
+
+	private void sendAll(byte[][] frames)
+	{
+		for(ServerSession session : watchers) {
+			for(byte[] frame : frames) {
+				session.send(frame);
+			}
+		}
+		hall.countSpectatorFrames((long)watchers.size() * frames.length);
+	}
+}
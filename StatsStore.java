@@ -0,0 +1,228 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Lifetime statistics per player name, kept in one file of fixed-width
+// records so that recording a game rewrites a single record in place.
+// Computer opponents are pseudo-players named like "Computer (Hard)".
+// The name index lives in memory and is rebuilt from the file when another
+// process has added players; every read and update holds an exclusive
+// FileLock, so several game processes can share one file.
+//
+// Layout, all little-endian:
+//   header  magic, version, record count, reserved
+//   record  name length, name (UTF-8, up to 31 bytes), wins, losses, draws,
+//           play time in millis, current win streak, best win streak, reserved
+final class StatsStore implements AutoCloseable
+{
+	private static final int MAGIC = 0x53545454; // "TTTS"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final int RECORD_BYTES = 80;
+	private static final int NAME_BYTES = 31;
+
+	// Offsets inside a record
+	private static final int WINS = 32;
+	private static final int LOSSES = 40;
+	private static final int DRAWS = 48;
+	private static final int PLAY_MILLIS = 56;
+	private static final int WIN_STREAK = 64;
+	private static final int BEST_WIN_STREAK = 68;
+
+	private final Path file;
+	private final FileChannel channel;
+	private final Map<String, Integer> index = new HashMap<>();
+	private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+	private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+	private int indexed = 0; // Records already in the index
+
+	StatsStore(Path file) throws IOException
+	{
+		this.file = file;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			FileLock lock = channel.lock();
+			try {
+				if(channel.size() == 0) {
+					header.clear();
+					header.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0).flip();
+					writeFully(header, 0);
+				} else {
+					refreshIndex();
+				}
+			} finally {
+				lock.release();
+			}
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	// The file under the user's home directory, or -Dtictactoe.stats
+	static Path defaultFile()
+	{
+		String file = System.getProperty("tictactoe.stats");
+		if(file != null) {
+			return Paths.get(file);
+		}
+		return Paths.get(System.getProperty("user.home"), ".tictactoe-stats");
+	}
+
+	// Lifetime figures for a player, or null if they have never played
+	synchronized PlayerStats.Snapshot get(String name) throws IOException
+	{
+		String key = key(name);
+		FileLock lock = channel.lock();
+		try {
+			refreshIndex();
+			Integer slot = index.get(key);
+			if(slot == null) {
+				return null;
+			}
+			readRecord(slot);
+			return new PlayerStats.Snapshot(record.getLong(WINS), record.getLong(LOSSES), record.getLong(DRAWS),
+				record.getInt(WIN_STREAK), record.getInt(BEST_WIN_STREAK), record.getLong(PLAY_MILLIS));
+		} finally {
+			lock.release();
+		}
+	}
+
+	void recordWin(String name, long playMillis) throws IOException
+	{
+		update(name, WINS, playMillis);
+	}
+
+	void recordLoss(String name, long playMillis) throws IOException
+	{
+		update(name, LOSSES, playMillis);
+	}
+
+	void recordDraw(String name, long playMillis) throws IOException
+	{
+		update(name, DRAWS, playMillis);
+	}
+
+	// Adds one to an outcome and rewrites the player's record, adding the
+	// record first if the name is new
+	private synchronized void update(String name, int outcome, long playMillis) throws IOException
+	{
+		String key = key(name);
+		FileLock lock = channel.lock();
+		try {
+			refreshIndex();
+			Integer slot = index.get(key);
+			if(slot == null) {
+				slot = indexed;
+				// The record goes in before the count that makes it visible
+				Arrays.fill(record.array(), (byte)0);
+				byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+				record.clear();
+				record.put((byte)bytes.length).put(bytes);
+				record.clear();
+				writeFully(record, recordOffset(slot));
+				header.clear();
+				header.putInt(8, slot + 1);
+				header.position(8).limit(12);
+				writeFully(header, 0);
+				index.put(key, slot);
+				indexed++;
+			}
+			readRecord(slot);
+			record.putLong(outcome, record.getLong(outcome) + 1);
+			record.putLong(PLAY_MILLIS, record.getLong(PLAY_MILLIS) + playMillis);
+			int streak = outcome == WINS ? record.getInt(WIN_STREAK) + 1 : 0;
+			record.putInt(WIN_STREAK, streak);
+			record.putInt(BEST_WIN_STREAK, Math.max(streak, record.getInt(BEST_WIN_STREAK)));
+			record.clear();
+			writeFully(record, recordOffset(slot));
+		} finally {
+			lock.release();
+		}
+	}
+
+	// Stored form of a name: cut to whole characters that fit the field
+	private static String key(String name)
+	{
+		String key = name.trim();
+		while(key.getBytes(StandardCharsets.UTF_8).length > NAME_BYTES) {
+			key = key.substring(0, key.offsetByCodePoints(key.length(), -1));
+		}
+		return key;
+	}
+
+	private static long recordOffset(int slot)
+	{
+		return HEADER_BYTES + (long)slot * RECORD_BYTES;
+	}
+
+	// Indexes records other processes have appended since the last look
+	private void refreshIndex() throws IOException
+	{
+		header.clear();
+		readFully(header, 0);
+		if(header.getInt(0) != MAGIC) {
+			throw new IOException(file + " is not a statistics file");
+		}
+		if(header.getInt(4) != VERSION) {
+			throw new IOException(file + " is statistics version " + header.getInt(4) + ", expected " + VERSION);
+		}
+		int count = header.getInt(8);
+		for(int slot = indexed; slot < count; slot++) {
+			readRecord(slot);
+			int length = record.get(0) & 0xFF;
+			index.put(new String(record.array(), 1, length, StandardCharsets.UTF_8), slot);
+		}
+		indexed = count;
+	}
+
+	private void readRecord(int slot) throws IOException
+	{
+		record.clear();
+		readFully(record, recordOffset(slot));
+		record.clear();
+	}
+
+	// Buffer index 0 corresponds to file offset base
+	private void readFully(ByteBuffer buffer, long base) throws IOException
+	{
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, base + buffer.position()) < 0) {
+				throw new IOException(file + " is truncated");
+			}
+		}
+	}
+
+	private void writeFully(ByteBuffer buffer, long base) throws IOException
+	{
+		while(buffer.hasRemaining()) {
+			channel.write(buffer, base + buffer.position());
+		}
+	}
+
+	// Players with a record
+	synchronized int size() throws IOException
+	{
+		FileLock lock = channel.lock();
+		try {
+			refreshIndex();
+			return indexed;
+		} finally {
+			lock.release();
+		}
+	}
+
+	public synchronized void close() throws IOException
+	{
+		channel.close();
+	}
+}
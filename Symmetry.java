@@ -0,0 +1,96 @@
+// The 8 symmetries of a square board (the D4 group), as cell permutations.
+// Used to fold rotated and reflected positions onto one canonical form.
+final class Symmetry
+{
+	static final int COUNT = 8;
+
+	private final int size;
+	private final int[][] forward;
+	private final int[][] inverse;
+
+	Symmetry(int size)
+	{
+		this.size = size;
+		int cells = size * size;
+		forward = new int[COUNT][cells];
+		inverse = new int[COUNT][cells];
+
+		for(int t = 0; t < COUNT; t++) {
+			for(int row = 0; row < size; row++) {
+				for(int col = 0; col < size; col++) {
+					int cell = row * size + col;
+					int image = image(t, row, col);
+					forward[t][cell] = image;
+					inverse[t][image] = cell;
+				}
+			}
+		}
+	}
+
+	int getSize()
+	{
+		return size;
+	}
+
+	// Where transform t sends (row, col)
+	private int image(int t, int row, int col)
+	{
+		int last = size - 1;
+		switch(t) {
+			case 1: return col * size + (last - row);                // rotate 90
+			case 2: return (last - row) * size + (last - col);       // rotate 180
+			case 3: return (last - col) * size + row;                // rotate 270
+			case 4: return row * size + (last - col);                // mirror left-right
+			case 5: return (last - row) * size + col;                // mirror top-bottom
+			case 6: return col * size + row;                         // main diagonal
+			case 7: return (last - col) * size + (last - row);       // anti-diagonal
+			default: return row * size + col;                        // identity
+		}
+	}
+
+	int mapCell(int t, int cell)
+	{
+		return forward[t][cell];
+	}
+
+	// Map a cell of the transformed board back to the original board
+	int unmapCell(int t, int cell)
+	{
+		return inverse[t][cell];
+	}
+
+	long transform(int t, long mask)
+	{
+		if(t == 0) {
+			return mask;
+		}
+		int[] map = forward[t];
+		long result = 0;
+		for(; mask != 0; mask &= mask - 1) {
+			result |= 1L << map[Long.numberOfTrailingZeros(mask)];
+		}
+		return result;
+	}
+
+	// Transform that takes (xBits, oBits) to its canonical (smallest) form
+	int canonicalTransform(long xBits, long oBits)
+	{
+		int best = 0;
+		long bestX = xBits;
+		long bestO = oBits;
+		for(int t = 1; t < COUNT; t++) {
+			long x = transform(t, xBits);
+			int order = Long.compareUnsigned(x, bestX);
+			if(order > 0) {
+				continue;
+			}
+			long o = transform(t, oBits);
+			if(order < 0 || Long.compareUnsigned(o, bestO) < 0) {
+				best = t;
+				bestX = x;
+				bestO = o;
+			}
+		}
+		return best;
+	}
+}
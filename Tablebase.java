@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Precomputed best moves for one board geometry, read from a file written by
+// TablebaseGenerator. The file is an open-addressing hash table of canonical
+// positions (the smallest of the eight rotations and reflections), so a
+// lookup hashes the position and probes the mapped pages directly: opening a
+// tablebase only maps the file, nothing is deserialised, and processes that
+// open the same file share its pages through the OS page cache.
+//
+// Layout, all little-endian:
+//   header  magic, version, size, win length, slot count (a power of two),
+//           entry count, plies covered, search depth, reserved
+//   slot    X bits, O bits, best move + 1 (0 marks an empty slot)
+final class Tablebase
+{
+	static final int MAGIC = 0x42545454; // "TTTB"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 64;
+	static final int SLOT_BYTES = 17;
+
+	// Tablebases opened so far, an empty Optional where no file exists
+	private static final ConcurrentHashMap<BoardGeometry, Optional<Tablebase>> LOADED = new ConcurrentHashMap<>();
+
+	private final BoardGeometry geometry;
+	private final Symmetry symmetry;
+	private final MappedByteBuffer slots;
+	private final int mask;
+	private final int entryCount;
+	private final int plies;
+	private final int searchDepth;
+
+	private Tablebase(BoardGeometry geometry, MappedByteBuffer slots, int slotCount, int entryCount, int plies, int searchDepth)
+	{
+		this.geometry = geometry;
+		this.symmetry = geometry.getSymmetry();
+		this.slots = slots;
+		this.mask = slotCount - 1;
+		this.entryCount = entryCount;
+		this.plies = plies;
+		this.searchDepth = searchDepth;
+	}
+
+	// The tablebase for a geometry from -Dtictactoe.tablebase.dir (default
+	// "tablebases"), or null if there is none; each file is mapped once
+	static Tablebase forGeometry(BoardGeometry geometry)
+	{
+		return LOADED.computeIfAbsent(geometry, g -> {
+			Path file = Paths.get(System.getProperty("tictactoe.tablebase.dir", "tablebases"), fileName(g));
+			if(!Files.isRegularFile(file)) {
+				return Optional.empty();
+			}
+			try {
+				return Optional.of(open(file));
+			} catch(IOException e) {
+				System.err.println("Ignoring tablebase " + file + ": " + e.getMessage());
+				return Optional.empty();
+			}
+		}).orElse(null);
+	}
+
+	// "tablebase-4x4k4.ttb"
+	static String fileName(BoardGeometry geometry)
+	{
+		return "tablebase-" + geometry.getSize() + "x" + geometry.getSize() + "k" + geometry.getWinLength() + ".ttb";
+	}
+
+	static Tablebase open(Path file) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if(channel.size() < HEADER_BYTES) {
+				throw new IOException(file + " is not a tablebase");
+			}
+			// The mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if(buffer.getInt(0) != MAGIC) {
+				throw new IOException(file + " is not a tablebase");
+			}
+			if(buffer.getInt(4) != VERSION) {
+				throw new IOException(file + " is tablebase version " + buffer.getInt(4) + ", expected " + VERSION);
+			}
+			BoardGeometry geometry = BoardGeometry.of(buffer.getInt(8), buffer.getInt(12));
+			int slotCount = buffer.getInt(16);
+			if(Integer.bitCount(slotCount) != 1 || channel.size() != HEADER_BYTES + (long)slotCount * SLOT_BYTES) {
+				throw new IOException(file + " is truncated");
+			}
+			return new Tablebase(geometry, buffer, slotCount, buffer.getInt(20), buffer.getInt(24), buffer.getInt(28));
+		} catch(IllegalArgumentException e) {
+			throw new IOException(file + " has a bad board: " + e.getMessage());
+		}
+	}
+
+	static int slot(long xBits, long oBits, int mask)
+	{
+		long hash = (xBits * 0x9E3779B97F4A7C15L) ^ (oBits * 0xC2B2AE3D27D4EB4FL);
+		return (int)(hash ^ (hash >>> 32)) & mask;
+	}
+
+	// Best cell for the side to move, or -1 if the position is not stored.
+	// Only absolute reads, so any number of threads may look up at once.
+	int getBestMove(Position position)
+	{
+		if(position.getGeometry() != geometry) {
+			return -1;
+		}
+		long xBits = position.bits(Position.X);
+		long oBits = position.bits(Position.O);
+		int t = symmetry.canonicalTransform(xBits, oBits);
+		long canonicalX = symmetry.transform(t, xBits);
+		long canonicalO = symmetry.transform(t, oBits);
+		for(int slot = slot(canonicalX, canonicalO, mask); ; slot = (slot + 1) & mask) {
+			int offset = HEADER_BYTES + slot * SLOT_BYTES;
+			int move = slots.get(offset + 16);
+			if(move == 0) {
+				return -1;
+			}
+			if(slots.getLong(offset) == canonicalX && slots.getLong(offset + 8) == canonicalO) {
+				return symmetry.unmapCell(t, move - 1);
+			}
+		}
+	}
+
+	BoardGeometry getGeometry()
+	{
+		return geometry;
+	}
+
+	int getEntryCount()
+	{
+		return entryCount;
+	}
+
+	// Positions with up to this many moves played are stored
+	int getPlies()
+	{
+		return plies;
+	}
+
+	int getSearchDepth()
+	{
+		return searchDepth;
+	}
+
+	long getFileBytes()
+	{
+		return HEADER_BYTES + (mask + 1L) * SLOT_BYTES;
+	}
+}
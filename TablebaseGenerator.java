@@ -0,0 +1,246 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Builds a Tablebase file offline:
+//   java TablebaseGenerator [--size 4] [--win 4] [--plies 4] [--depth D]
+//                           [--threads N] [--out FILE]
+// Every position reachable in up to --plies moves is reduced to its
+// canonical form and searched once, deeper than the game searches during
+// play (default: two plies past the in-game depth). Finished games are left
+// out. The file goes to the tablebase directory under the name the game
+// looks for, unless --out says otherwise.
+final class TablebaseGenerator
+{
+	// Positions per task
+	private static final int BATCH = 64;
+
+	private int size = 4;
+	private int winLength = 4;
+	private int plies = 4;
+	private int depth = 0; // 0: in-game depth plus two
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private String out = null;
+
+	public static void main(String[] args) throws Exception
+	{
+		TablebaseGenerator generator = new TablebaseGenerator();
+		try {
+			generator.parse(args);
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java TablebaseGenerator [--size 4] [--win 4] [--plies 4] [--depth D]");
+			System.err.println("                               [--threads N] [--out FILE]");
+			System.exit(2);
+		}
+		generator.run();
+	}
+
+	private void parse(String[] args)
+	{
+		for(int i = 0; i < args.length; i += 2) {
+			String option = args[i];
+			if(i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + option);
+			}
+			String value = args[i + 1];
+			try {
+				switch(option) {
+					case "--size": size = Integer.parseInt(value); break;
+					case "--win": winLength = Integer.parseInt(value); break;
+					case "--plies": plies = Integer.parseInt(value); break;
+					case "--depth": depth = Integer.parseInt(value); break;
+					case "--threads": threads = Integer.parseInt(value); break;
+					case "--out": out = value; break;
+					default: throw new IllegalArgumentException("Unknown option " + option);
+				}
+			} catch(NumberFormatException e) {
+				throw new IllegalArgumentException("Not a number for " + option + ": " + value);
+			}
+		}
+		if(plies < 0 || depth < 0 || threads < 1) {
+			throw new IllegalArgumentException("Plies and depth cannot be negative, threads must be positive");
+		}
+		BoardGeometry.of(size, winLength); // Validates the board
+	}
+
+	private void run() throws Exception
+	{
+		BoardGeometry geometry = BoardGeometry.of(size, winLength);
+		int searchDepth = depth > 0 ? depth : MinimaxEngine.defaultDepth(geometry) + 2;
+		Path file = out != null ? Paths.get(out)
+			: Paths.get(System.getProperty("tictactoe.tablebase.dir", "tablebases"), Tablebase.fileName(geometry));
+
+		long start = System.nanoTime();
+		List<long[]> positions = enumerate(geometry, plies);
+		System.out.println(geometry + ": " + positions.size() + " positions up to ply " + plies
+			+ ", searching " + searchDepth + " plies on " + threads + (threads == 1 ? " thread" : " threads"));
+
+		int[] moves = solve(geometry, positions, searchDepth);
+		write(file, geometry, positions, moves, searchDepth);
+		System.out.println(String.format("Wrote %s, %d KB, in %.1f s",
+			file, Files.size(file) / 1024, (System.nanoTime() - start) / 1e9));
+	}
+
+	// Canonical {X bits, O bits} of every unfinished position up to maxPlies
+	private static List<long[]> enumerate(BoardGeometry geometry, int maxPlies)
+	{
+		Symmetry symmetry = geometry.getSymmetry();
+		List<long[]> all = new ArrayList<>();
+		List<long[]> layer = new ArrayList<>();
+		layer.add(new long[] {0, 0});
+		for(int ply = 0; ; ply++) {
+			all.addAll(layer);
+			if(ply == maxPlies) {
+				return all;
+			}
+			int side = ply % 2 == 0 ? Position.X : Position.O;
+			Set<Key> seen = new HashSet<>();
+			List<long[]> next = new ArrayList<>();
+			for(long[] bits : layer) {
+				Position position = new Position(geometry, bits[0], bits[1]);
+				for(long free = position.emptyCells(); free != 0; free &= free - 1) {
+					int cell = Long.numberOfTrailingZeros(free);
+					position.place(cell, side);
+					boolean finished = position.hasWonThrough(cell, side) || position.isFull();
+					long x = position.bits(Position.X);
+					long o = position.bits(Position.O);
+					position.clear(cell);
+					if(finished) {
+						continue;
+					}
+					int t = symmetry.canonicalTransform(x, o);
+					long canonicalX = symmetry.transform(t, x);
+					long canonicalO = symmetry.transform(t, o);
+					if(seen.add(new Key(canonicalX, canonicalO))) {
+						next.add(new long[] {canonicalX, canonicalO});
+					}
+				}
+			}
+			if(next.isEmpty()) {
+				return all;
+			}
+			layer = next;
+		}
+	}
+
+	// Best move of every position, in parallel batches with an engine per batch
+	private int[] solve(BoardGeometry geometry, List<long[]> positions, int searchDepth) throws Exception
+	{
+		int[] moves = new int[positions.size()];
+		List<Callable<Void>> batches = new ArrayList<>();
+		for(int first = 0; first < positions.size(); first += BATCH) {
+			int from = first;
+			int to = Math.min(positions.size(), first + BATCH);
+			batches.add(() -> {
+				MinimaxEngine engine = new MinimaxEngine(geometry, searchDepth, 1 << 18);
+				for(int i = from; i < to; i++) {
+					long[] bits = positions.get(i);
+					Position position = new Position(geometry, bits[0], bits[1]);
+					int side = Long.bitCount(bits[0]) == Long.bitCount(bits[1]) ? Position.X : Position.O;
+					moves[i] = engine.getBestMove(position, side);
+				}
+				return null;
+			});
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "tablebase");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			for(Future<Void> result : pool.invokeAll(batches)) {
+				result.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return moves;
+	}
+
+	// Lays the entries out as the hash table Tablebase probes, at most half full
+	private static void write(Path file, BoardGeometry geometry, List<long[]> positions, int[] moves, int searchDepth)
+		throws IOException
+	{
+		int slotCount = Integer.highestOneBit(Math.max(1, positions.size()) * 2 - 1) << 1;
+		long bytes = Tablebase.HEADER_BYTES + (long)slotCount * Tablebase.SLOT_BYTES;
+		if(bytes > Integer.MAX_VALUE) {
+			throw new IOException("A tablebase of " + positions.size() + " positions is too large; use fewer plies");
+		}
+		if(file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		// Written under a temporary name so readers never map a half-written file
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+			StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(0, Tablebase.MAGIC);
+			buffer.putInt(4, Tablebase.VERSION);
+			buffer.putInt(8, geometry.getSize());
+			buffer.putInt(12, geometry.getWinLength());
+			buffer.putInt(16, slotCount);
+			buffer.putInt(20, positions.size());
+			buffer.putInt(24, positionsPlies(positions));
+			buffer.putInt(28, searchDepth);
+			for(int i = 0; i < positions.size(); i++) {
+				long x = positions.get(i)[0];
+				long o = positions.get(i)[1];
+				int slot = Tablebase.slot(x, o, slotCount - 1);
+				while(buffer.get(Tablebase.HEADER_BYTES + slot * Tablebase.SLOT_BYTES + 16) != 0) {
+					slot = (slot + 1) & (slotCount - 1);
+				}
+				int offset = Tablebase.HEADER_BYTES + slot * Tablebase.SLOT_BYTES;
+				buffer.putLong(offset, x);
+				buffer.putLong(offset + 8, o);
+				buffer.put(offset + 16, (byte)(moves[i] + 1));
+			}
+			buffer.force();
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Moves played in the deepest stored position
+	private static int positionsPlies(List<long[]> positions)
+	{
+		long[] last = positions.get(positions.size() - 1);
+		return Long.bitCount(last[0]) + Long.bitCount(last[1]);
+	}
+
+	private static final class Key
+	{
+		final long x;
+		final long o;
+
+		Key(long x, long o)
+		{
+			this.x = x;
+			this.o = o;
+		}
+
+		public boolean equals(Object other)
+		{
+			return other instanceof Key && ((Key)other).x == x && ((Key)other).o == o;
+		}
+
+		public int hashCode()
+		{
+			return Long.hashCode(x * 31 + o);
+		}
+	}
+}
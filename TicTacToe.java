@@ -3,19 +3,21 @@ import java.awt.event.*;
 import javax.swing.JOptionPane;
 import java.io.*;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.text.SimpleDateFormat;
 
-class TicTacToeGame extends Frame implements ActionListener, ComponentListener
+// The window is a view over a GameModel: clicks and the AI feed moves into
+// the model, and its callbacks drive everything that is shown
+class TicTacToeGame extends Frame implements ActionListener, ComponentListener, GameListener
 {
 	private Button[] gameButtons = new Button[9];
 	private Button statusButton = new Button("Game Status");
 	private Button hintButton = new Button("HINT");
 	private Button leaveButton = new Button("LEAVE");
 	private Label titleLabel = new Label("TIC-TAC-TOE CHAMPIONSHIP", Label.CENTER);
-	private int moveCount = 0;
-	private boolean gameOver = false;
-	private String currentPlayer = "X";
 	private boolean isResizing = false;
 	private int lastWidth = 0;
 	private int lastHeight = 0;
@@ -36,46 +38,54 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	private Label roundsLabel;
 	private TextField roundsField;
 	
-	// Game moves tracking
-	private java.util.List<String> gameRecord = new java.util.ArrayList<>();
-	private int currentMoveNumber = 1;
+	// Board, turn, move history and round scores
+	private GameModel model = new GameModel(BoardGeometry.STANDARD);
 	
 	// Competition mode variables
 	private boolean competitionMode = false;
-	private int totalRounds = 1;
-	private int currentRound = 1;
-	private int player1Wins = 0;
-	private int player2Wins = 0;
-	private int draws = 0;
-	private java.util.List<java.util.List<String>> allRoundsRecord = new java.util.ArrayList<>();
-	private java.util.List<String> roundResults = new java.util.ArrayList<>();
 	
 	// New features
 	private boolean soundEnabled = true;
 	private String selectedTheme = "Classic";
 	private int gameSpeed = 1; // 1=Normal, 2=Fast, 3=Slow
 	private boolean showAnimations = true;
-	private HashMap<String, Integer> playerStats = new HashMap<>();
+	private final PlayerStats playerStats = new PlayerStats(); // This session, from player 1's side
+	private StatsStore statsStore = openStatsStore(); // Every player's lifetime figures; null if unavailable
 	private long gameStartTime;
-	private long totalGameTime = 0;
 	private Button soundToggleButton;
 	private Button themeButton;
 	private Button statsButton;
 	private Button saveGameButton;
+	private GameJournal journal = openJournal(); // Null unless -Dtictactoe.journal is set
+	private final GameServer spectatorServer = openSpectatorServer(); // Null unless -Dtictactoe.spectators is set
+	private SpectatorFeed spectatorFeed; // The current match, as spectators see it
 	private Choice difficultyChoice;
 	private boolean vsComputer = false;
 	private String aiDifficulty = "Medium";
+	private ComputerPlayer computer = new ComputerPlayer(BoardGeometry.STANDARD);
 	
-	// Win condition patterns (row, column, diagonal indices)
-	private final int[][] WIN_PATTERNS = {
-		{0, 1, 2}, {3, 4, 5}, {6, 7, 8}, // rows
-		{0, 3, 6}, {1, 4, 7}, {2, 5, 8}, // columns
-		{0, 4, 8}, {2, 4, 6}              // diagonals
-	};
+	// AI searches run off the event thread; results are posted back to it
+	private final ScheduledExecutorService aiExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ai-search");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private Future<?> pendingSearch;
+	private int searchGeneration = 0; // Bumped to discard stale search results
+	private boolean aiThinking = false;
+	
+	// Board size and win length, chosen on the setup screen
+	private int boardSize = 3;
+	private int winLength = 3;
+	private Choice boardSizeChoice;
+	private Choice winLengthChoice;
+	private BoardGeometry geometry = BoardGeometry.STANDARD;
+	
+	// Win condition patterns (row, column, diagonal indices) for the current geometry
+	private int[][] WIN_PATTERNS = geometry.getLineCells();
 	
 	public TicTacToeGame()
 	{
-		initializePlayerStats();
 		initializeFrame();
 		showPlayerSetupPanel();
 		
@@ -99,16 +109,6 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		applyTheme();
 	}
 	
-	private void initializePlayerStats()
-	{
-		playerStats.put("totalGames", 0);
-		playerStats.put("wins", 0);
-		playerStats.put("losses", 0);
-		playerStats.put("draws", 0);
-		playerStats.put("winStreak", 0);
-		playerStats.put("bestWinStreak", 0);
-	}
-	
 	private void applyTheme()
 	{
 		switch(selectedTheme) {
@@ -264,10 +264,9 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		
 		// AI Difficulty selection (initially hidden)
 		difficultyChoice = new Choice();
-		difficultyChoice.add("Easy");
-		difficultyChoice.add("Medium");
-		difficultyChoice.add("Hard");
-		difficultyChoice.add("Expert");
+		for(String difficulty : ComputerPlayer.DIFFICULTIES) {
+			difficultyChoice.add(difficulty);
+		}
 		difficultyChoice.select("Medium");
 		difficultyChoice.setSize(100, 30);
 		difficultyChoice.setLocation(labelStartX + 380, 280);
@@ -280,10 +279,54 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		});
 		add(difficultyChoice);
 		
+		// Board size and win length selection
+		Label boardSizeLabel = new Label("Board Size:");
+		boardSizeLabel.setSize(150, 30);
+		boardSizeLabel.setLocation(labelStartX, 320);
+		boardSizeLabel.setFont(new Font("Arial", Font.BOLD, 14));
+		boardSizeLabel.setForeground(new Color(0, 100, 0)); // Dark Green
+		add(boardSizeLabel);
+		
+		boardSizeChoice = new Choice();
+		for(int size = BoardGeometry.MIN_SIZE; size <= BoardGeometry.MAX_SIZE; size++) {
+			boardSizeChoice.add(size + "x" + size);
+		}
+		boardSizeChoice.select(boardSize + "x" + boardSize);
+		boardSizeChoice.setSize(70, 30);
+		boardSizeChoice.setLocation(fieldStartX, 320);
+		boardSizeChoice.setFont(new Font("Arial", Font.PLAIN, 12));
+		boardSizeChoice.addItemListener(new ItemListener() {
+			public void itemStateChanged(ItemEvent e) {
+				boardSize = BoardGeometry.MIN_SIZE + boardSizeChoice.getSelectedIndex();
+				winLength = Math.min(winLength, boardSize);
+				fillWinLengthChoice();
+			}
+		});
+		add(boardSizeChoice);
+		
+		Label winLengthLabel = new Label("In a Row:");
+		winLengthLabel.setSize(75, 30);
+		winLengthLabel.setLocation(fieldStartX + 85, 320);
+		winLengthLabel.setFont(new Font("Arial", Font.BOLD, 14));
+		winLengthLabel.setForeground(new Color(0, 100, 0)); // Dark Green
+		add(winLengthLabel);
+		
+		winLengthChoice = new Choice();
+		winLengthChoice.setSize(50, 30);
+		winLengthChoice.setLocation(fieldStartX + 165, 320);
+		winLengthChoice.setFont(new Font("Arial", Font.PLAIN, 12));
+		winLengthChoice.addItemListener(new ItemListener() {
+			public void itemStateChanged(ItemEvent e) {
+				winLength = BoardGeometry.MIN_SIZE + winLengthChoice.getSelectedIndex();
+			}
+		});
+		fillWinLengthChoice();
+		add(winLengthChoice);
+		
 		// Rounds input (initially hidden)
 		roundsLabel = new Label("Number of Rounds:");
 		roundsLabel.setSize(150, 30);
-		roundsLabel.setLocation(labelStartX, 320);
+		roundsLabel.setLocation(labelStartX, 360);
 		roundsLabel.setFont(new Font("Arial", Font.BOLD, 14));
 		roundsLabel.setForeground(new Color(128, 0, 128)); // Purple
 		roundsLabel.setVisible(false);
@@ -291,7 +334,7 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		
 		roundsField = new TextField();
 		roundsField.setSize(100, 30);
-		roundsField.setLocation(fieldStartX, 320);
+		roundsField.setLocation(fieldStartX, 360);
 		roundsField.setFont(new Font("Arial", Font.PLAIN, 14));
 		roundsField.setVisible(false);
 		// Add focus listener for placeholder effect
@@ -321,7 +364,7 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		int buttonHeight = 60;
 		startButton = new Button("START GAME");
 		startButton.setSize(buttonWidth, buttonHeight);
-		startButton.setLocation((windowWidth - buttonWidth) / 2, 370);
+		startButton.setLocation((windowWidth - buttonWidth) / 2, 410);
 		startButton.setBackground(new Color(34, 139, 34)); // Forest Green
 		startButton.setForeground(Color.WHITE);
 		startButton.setFont(new Font("Arial", Font.BOLD, 18));
@@ -329,7 +372,7 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		add(startButton);
 		
 		// Additional control buttons
-		int controlY = 440;
+		int controlY = 485;
 		int buttonSpacing = 110;
 		int startX = (windowWidth - (buttonSpacing * 4)) / 2;
 		
@@ -376,6 +419,16 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		repaint();
 	}
 	
+	// Win length can range from 3 up to the board size
+	private void fillWinLengthChoice()
+	{
+		winLengthChoice.removeAll();
+		for(int length = BoardGeometry.MIN_SIZE; length <= boardSize; length++) {
+			winLengthChoice.add(String.valueOf(length));
+		}
+		winLengthChoice.select(String.valueOf(winLength));
+	}
+	
 	// Validation method to check if name contains at least one alphabet character
 	private boolean isValidName(String name)
 	{
@@ -449,6 +502,7 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		
 		// Check competition mode
 		competitionMode = competitionCheckbox.getState();
+		int rounds = 1;
 		if(competitionMode) {
 			try {
 				String roundsText = roundsField.getText().trim();
@@ -463,8 +517,8 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 					return;
 				}
 				
-				totalRounds = Integer.parseInt(roundsText);
-				if(totalRounds < 1 || totalRounds > 10) {
+				rounds = Integer.parseInt(roundsText);
+				if(rounds < 1 || rounds > 10) {
 					JOptionPane.showMessageDialog(
 						this,
 						"Number of rounds must be between 1 and 10!",
@@ -482,19 +536,23 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 				);
 				return;
 			}
-			
-			// Reset competition stats
-			currentRound = 1;
-			player1Wins = 0;
-			player2Wins = 0;
-			draws = 0;
-			allRoundsRecord.clear();
-			roundResults.clear();
-		} else {
-			totalRounds = 1;
-			currentRound = 1;
 		}
 		
+		// Set up the board geometry and an engine sized for it
+		if(geometry.getSize() != boardSize || geometry.getWinLength() != winLength) {
+			geometry = BoardGeometry.of(boardSize, winLength);
+			WIN_PATTERNS = geometry.getLineCells();
+			computer.shutdown();
+			computer = new ComputerPlayer(geometry);
+		}
+		
+		// A fresh model for the match, with this window as its view; the
+		// spectator feed listens first so it has each round's result before
+		// the window moves on to the next round
+		model = new GameModel(geometry, rounds);
+		publishToSpectators();
+		model.addListener(this);
+		
 		// Remove setup components
 		removeAll();
 		
@@ -516,7 +574,30 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private String getCurrentPlayerName()
 	{
-		return currentPlayer.equals("X") ? player1Name : player2Name;
+		return playerName(model.getSideToMove());
+	}
+	
+	private String playerName(int side)
+	{
+		return side == Position.X ? player1Name : player2Name;
+	}
+	
+	// Button label for a side
+	private static String mark(int side)
+	{
+		return side == Position.X ? "X" : "O";
+	}
+	
+	// "Move n: Name (X) at Row r, Column c" for move n of a game, counting from 0
+	private String formatMove(int n, int cell)
+	{
+		return HistoryViewer.formatMove(n, cell, model.getGeometry().getSize(), player1Name, player2Name);
+	}
+	
+	// Result line for a finished round, counting from 0
+	private String formatRoundResult(int round)
+	{
+		return HistoryViewer.formatRoundResult(model, round, player1Name, player2Name);
 	}
 	
 	private void createTitleLabel()
@@ -524,7 +605,7 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		int windowWidth = getWidth();
 		String titleText = "TIC-TAC-TOE CHAMPIONSHIP";
 		if(competitionMode) {
-			titleText += " - Round " + currentRound + " of " + totalRounds;
+			titleText += " - Round " + model.getCurrentRound() + " of " + model.getTotalRounds();
 		}
 		titleLabel.setText(titleText);
 		titleLabel.setSize(windowWidth - 40, 30);
@@ -540,26 +621,27 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		int windowHeight = getHeight();
 		
 		// Calculate dynamic button size and positioning
-		int buttonSize = Math.min((windowWidth - 120) / 3, (windowHeight - 200) / 3);
-		buttonSize = Math.max(buttonSize, 80); // Minimum button size
+		int buttonSize = Math.min((windowWidth - 120) / boardSize, (windowHeight - 200) / boardSize);
+		buttonSize = Math.max(buttonSize, 240 / boardSize); // Minimum button size
 		
-		int totalBoardWidth = buttonSize * 3;
-		int totalBoardHeight = buttonSize * 3;
+		int totalBoardWidth = buttonSize * boardSize;
+		int totalBoardHeight = buttonSize * boardSize;
 		int startX = (windowWidth - totalBoardWidth) / 2;
 		int startY = (windowHeight - totalBoardHeight) / 2;
 		
 		int buttonIndex = 0;
+		gameButtons = new Button[boardSize * boardSize];
 		
-		for(int row = 0; row < 3; row++)
+		for(int row = 0; row < boardSize; row++)
 		{
-			for(int col = 0; col < 3; col++)
+			for(int col = 0; col < boardSize; col++)
 			{
 				gameButtons[buttonIndex] = new Button("");
 				gameButtons[buttonIndex].setSize(buttonSize, buttonSize);
 				gameButtons[buttonIndex].setLocation(startX + (col * buttonSize), startY + (row * buttonSize));
 				
 				// Dynamic font size based on button size
-				int fontSize = Math.max(buttonSize / 3, 20);
+				int fontSize = Math.max(buttonSize / 3, 12);
 				gameButtons[buttonIndex].setFont(new Font("Arial", Font.BOLD, fontSize));
 				
 				// Beautiful button styling
@@ -671,8 +753,8 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		// Handle game button clicks
 		Button clickedButton = (Button)e.getSource();
 		
-		// Check if game is over or button already clicked
-		if(gameOver || !clickedButton.getLabel().equals(""))
+		// Check if game is over, the computer is moving or button already clicked
+		if(model.isGameOver() || aiThinking || !clickedButton.getLabel().equals(""))
 		{
 			return;
 		}
@@ -681,32 +763,11 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		makeMove(clickedButton);
 		
 		// If it's computer's turn and VS Computer is enabled
-		if(!gameOver && vsComputer && currentPlayer.equals("O")) {
-			// Add delay for better user experience
-			try {
-				Thread.sleep(500 + (gameSpeed == 3 ? 1000 : gameSpeed == 2 ? 0 : 300));
-			} catch(InterruptedException ex) {}
-			
-			makeComputerMove();
+		if(!model.isGameOver() && vsComputer && model.getSideToMove() == Position.O) {
+			scheduleComputerMove();
 		}
 	}
 	
-	private boolean checkWin(String player)
-	{
-		for(int[] pattern : WIN_PATTERNS)
-		{
-			if(gameButtons[pattern[0]].getLabel().equals(player) &&
-			   gameButtons[pattern[1]].getLabel().equals(player) &&
-			   gameButtons[pattern[2]].getLabel().equals(player))
-			{
-				// Highlight winning combination
-				highlightWinningButtons(pattern);
-				return true;
-			}
-		}
-		return false;
-	}
-	
 	private void highlightWinningButtons(int[] winningPattern)
 	{
 		for(int index : winningPattern)
@@ -731,7 +792,19 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private void makeMove(Button clickedButton)
 	{
-		clickedButton.setLabel(currentPlayer);
+		for(int i = 0; i < gameButtons.length; i++) {
+			if(gameButtons[i] == clickedButton) {
+				model.play(i);
+				return;
+			}
+		}
+	}
+	
+	// GameListener: show the mark the model just placed
+	public void movePlayed(GameModel game, int cell, int side)
+	{
+		Button clickedButton = gameButtons[cell];
+		clickedButton.setLabel(mark(side));
 		clickedButton.setEnabled(false);
 		
 		// Play sound effect
@@ -744,24 +817,6 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 			animateButton(clickedButton);
 		}
 		
-		// Record the move
-		int buttonIndex = -1;
-		for(int i = 0; i < gameButtons.length; i++) {
-			if(gameButtons[i] == clickedButton) {
-				buttonIndex = i;
-				break;
-			}
-		}
-		
-		if(buttonIndex != -1) {
-			int row = buttonIndex / 3 + 1;
-			int col = buttonIndex % 3 + 1;
-			String moveRecord = "Move " + currentMoveNumber + ": " + getCurrentPlayerName() + 
-			                   " (" + currentPlayer + ") at Row " + row + ", Column " + col;
-			gameRecord.add(moveRecord);
-			currentMoveNumber++;
-		}
-		
 		// Add beautiful colors for X and O based on theme
 		Color xColor, oColor;
 		switch(selectedTheme) {
@@ -787,20 +842,28 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 				break;
 		}
 		
-		if(currentPlayer.equals("X")) {
+		if(side == Position.X) {
 			clickedButton.setForeground(xColor);
 		} else {
 			clickedButton.setForeground(oColor);
 		}
 		
-		moveCount++;
+		if(!game.isGameOver()) {
+			updateStatus(getCurrentPlayerName() + "'s turn");
+		}
+	}
+	
+	// GameListener: the model has already scored the round
+	public void gameEnded(GameModel game, int winner)
+	{
+		appendToJournal(game);
 		
-		// Check for win
-		if(checkWin(currentPlayer))
+		if(winner != -1)
 		{
-			String winnerName = getCurrentPlayerName();
+			// Highlight winning combination
+			highlightWinningCombination();
+			String winnerName = playerName(winner);
 			updateStatus(winnerName + " wins!");
-			gameOver = true;
 			disableAllButtons();
 			
 			// Update stats
@@ -811,13 +874,12 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 				playWinSound();
 			}
 			
-			// Handle round completion
-			handleRoundEnd(winnerName, false);
+			// Handle round completion once every listener has seen the result
+			EventQueue.invokeLater(() -> handleRoundEnd(game, winnerName, false));
 		}
-		else if(moveCount == 9)
+		else
 		{
 			updateStatus("It's a draw!");
-			gameOver = true;
 			
 			// Update stats for draw
 			updatePlayerStats("", true);
@@ -827,61 +889,75 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 				playDrawSound();
 			}
 			
-			// Handle round completion
-			handleRoundEnd("", true);
+			// Handle round completion once every listener has seen the result
+			EventQueue.invokeLater(() -> handleRoundEnd(game, "", true));
 		}
-		else
+	}
+	
+	// GameListener: a new match or the next round
+	public void boardCleared(GameModel game)
+	{
+		// Reset game buttons
+		for(Button button : gameButtons)
 		{
-			// Switch player
-			currentPlayer = currentPlayer.equals("X") ? "O" : "X";
-			updateStatus(getCurrentPlayerName() + "'s turn");
+			button.setLabel("");
+			button.setEnabled(true);
+			button.setBackground(new Color(255, 255, 255)); // White background
+			button.setForeground(new Color(70, 130, 180)); // Steel Blue text
 		}
+		
+		// Update title and status
+		createTitleLabel();
+		updateStatus(getCurrentPlayerName() + "'s turn");
+		repaint();
 	}
 	
-	private void makeComputerMove()
+	// Search for the computer's move in the background; the board stays live
+	private void scheduleComputerMove()
 	{
-		if(gameOver) return;
-		
-		int move = getComputerMove();
-		if(move != -1) {
-			makeMove(gameButtons[move]);
-		}
+		// A hint for the position before this move would only hold it up
+		cancelPendingSearch();
+		
+		final int generation = ++searchGeneration;
+		final Position board = model.getPosition();
+		final int side = model.getSideToMove();
+		
+		aiThinking = true;
+		updateStatus(getCurrentPlayerName() + " is thinking...");
+		
+		// Keep the delay for better user experience, without blocking the window
+		long delay = 500 + (gameSpeed == 3 ? 1000 : gameSpeed == 2 ? 0 : 300);
+		pendingSearch = aiExecutor.schedule(() -> {
+			int move = computer.getMove(aiDifficulty, board, side);
+			EventQueue.invokeLater(() -> makeComputerMove(move, generation));
+		}, delay, TimeUnit.MILLISECONDS);
 	}
 	
-	private int getComputerMove()
+	private void makeComputerMove(int move, int generation)
 	{
-		String[] board = new String[9];
-		for(int i = 0; i < 9; i++) {
-			board[i] = gameButtons[i].getLabel();
-		}
-		
-		switch(aiDifficulty) {
-			case "Easy":
-				return getRandomMove(board);
-			case "Medium":
-				return Math.random() < 0.7 ? getBestMove() : getRandomMove(board);
-			case "Hard":
-				return Math.random() < 0.9 ? getBestMove() : getRandomMove(board);
-			case "Expert":
-				return getBestMove();
-			default:
-				return getBestMove();
+		// The game was left or restarted while the search ran
+		if(generation != searchGeneration) return;
+		
+		aiThinking = false;
+		pendingSearch = null;
+		if(model.isGameOver()) return;
+		
+		if(move != -1) {
+			model.play(move);
 		}
 	}
 	
-	private int getRandomMove(String[] board)
+	// Drop any queued or running search, a computer move or a hint, and
+	// ignore its result
+	private void cancelPendingSearch()
 	{
-		java.util.List<Integer> availableMoves = new java.util.ArrayList<>();
-		for(int i = 0; i < 9; i++) {
-			if(board[i].equals("")) {
-				availableMoves.add(i);
-			}
+		searchGeneration++;
+		aiThinking = false;
+		if(pendingSearch != null) {
+			isShowingHint = false; // A cancelled hint is never presented
+			pendingSearch.cancel(true);
+			pendingSearch = null;
 		}
-		
-		if(availableMoves.isEmpty()) return -1;
-		
-		int randomIndex = (int)(Math.random() * availableMoves.size());
-		return availableMoves.get(randomIndex);
 	}
 	
 	private void toggleSound()
@@ -915,7 +991,7 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		applyTheme();
 		
 		// Update all button colors if game is active
-		if(gameStarted && !gameOver) {
+		if(gameStarted && !model.isGameOver()) {
 			for(int i = 0; i < gameButtons.length; i++) {
 				if(!gameButtons[i].getLabel().equals("")) {
 					Color xColor, oColor;
@@ -963,34 +1039,63 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private void showPlayerStats()
 	{
+		PlayerStats.Snapshot snapshot = playerStats.snapshot();
 		StringBuilder stats = new StringBuilder();
 		stats.append("PLAYER STATISTICS\n");
 		stats.append("==========================================\n\n");
 		
-		stats.append("Total Games Played: ").append(playerStats.get("totalGames")).append("\n");
-		stats.append("Games Won: ").append(playerStats.get("wins")).append("\n");
-		stats.append("Games Lost: ").append(playerStats.get("losses")).append("\n");
-		stats.append("Games Drawn: ").append(playerStats.get("draws")).append("\n\n");
+		if(statsStore != null) {
+			stats.append("ALL-TIME RECORDS\n");
+			stats.append(formatLifetimeStats(player1Name));
+			stats.append(formatLifetimeStats(player2Name));
+			stats.append("\nTHIS SESSION (").append(player1Name).append(")\n");
+		}
 		
-		int total = playerStats.get("totalGames");
-		if(total > 0) {
-			double winRate = (playerStats.get("wins") * 100.0) / total;
-			stats.append("Win Rate: ").append(String.format("%.1f", winRate)).append("%\n");
+		stats.append("Total Games Played: ").append(snapshot.totalGames).append("\n");
+		stats.append("Games Won: ").append(snapshot.wins).append("\n");
+		stats.append("Games Lost: ").append(snapshot.losses).append("\n");
+		stats.append("Games Drawn: ").append(snapshot.draws).append("\n\n");
+		
+		if(snapshot.totalGames > 0) {
+			stats.append("Win Rate: ").append(String.format("%.1f", snapshot.winRate())).append("%\n");
 		}
 		
-		stats.append("Current Win Streak: ").append(playerStats.get("winStreak")).append("\n");
-		stats.append("Best Win Streak: ").append(playerStats.get("bestWinStreak")).append("\n\n");
+		stats.append("Current Win Streak: ").append(snapshot.winStreak).append("\n");
+		stats.append("Best Win Streak: ").append(snapshot.bestWinStreak).append("\n\n");
 		
-		if(gameStarted && !gameOver) {
+		if(gameStarted && !model.isGameOver()) {
 			long currentTime = System.currentTimeMillis();
 			long gameTime = (currentTime - gameStartTime) / 1000;
 			stats.append("Current Game Time: ").append(gameTime).append(" seconds\n");
 		}
 		
-		if(totalGameTime > 0) {
-			stats.append("Total Play Time: ").append(totalGameTime / 1000).append(" seconds");
+		if(snapshot.playMillis > 0) {
+			stats.append("Total Play Time: ").append(snapshot.playMillis / 1000).append(" seconds");
 		}
-		
+
+		// AI engine cost: solved table size and the last search effort
+		PerfectPlayTable perfectPlay = PerfectPlayTable.get();
+		MinimaxEngine engine = computer.getEngine();
+		MctsEngine mctsEngine = computer.getMctsEngine();
+		stats.append("\n\nAI Table: ").append(perfectPlay.getPositionCount()).append(" positions, ");
+		stats.append(perfectPlay.getFootprintBytes() / 1024).append(" KB, built in ");
+		stats.append(String.format("%.1f", perfectPlay.getBuildMillis())).append(" ms");
+		Tablebase tablebase = computer.getTablebase();
+		if(tablebase != null) {
+			stats.append("\nTablebase: ").append(tablebase.getEntryCount()).append(" positions up to move ");
+			stats.append(tablebase.getPlies()).append(", searched ").append(tablebase.getSearchDepth()).append(" plies deep");
+		}
+		if(engine.getNodesSearched() > 0) {
+			stats.append("\nLast AI Search: ").append(engine.getNodesSearched()).append(" nodes");
+			TranspositionCache cache = engine.getCache();
+			stats.append("\nSearch Cache: ").append(cache.getHits()).append(" hits, ");
+			stats.append(cache.getMisses()).append(" misses, ").append(cache.getEvictions()).append(" evictions");
+		}
+		if(mctsEngine.getLastPlayouts() > 0) {
+			stats.append("\nLast MCTS Search: ").append(mctsEngine.getLastPlayouts()).append(" playouts, ");
+			stats.append(String.format("%.0f", mctsEngine.getPlayoutsPerSecond())).append(" per second");
+		}
+
 		JOptionPane.showMessageDialog(
 			this,
 			stats.toString(),
@@ -1001,26 +1106,59 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private void updatePlayerStats(String winner, boolean isDraw)
 	{
-		playerStats.put("totalGames", playerStats.get("totalGames") + 1);
+		long playMillis = gameStartTime > 0 ? System.currentTimeMillis() - gameStartTime : 0;
+		playerStats.addPlayTime(playMillis);
 		
-		if(gameStartTime > 0) {
-			totalGameTime += (System.currentTimeMillis() - gameStartTime);
+		// Streaks reset on a draw or a loss
+		if(isDraw) {
+			playerStats.recordDraw();
+		} else if(winner.equals(player1Name)) {
+			playerStats.recordWin();
+		} else {
+			playerStats.recordLoss();
 		}
 		
-		if(isDraw) {
-			playerStats.put("draws", playerStats.get("draws") + 1);
-			playerStats.put("winStreak", 0); // Reset win streak on draw
-		} else if(winner.equals(player1Name) || (vsComputer && winner.equals(player1Name))) {
-			playerStats.put("wins", playerStats.get("wins") + 1);
-			int currentStreak = playerStats.get("winStreak") + 1;
-			playerStats.put("winStreak", currentStreak);
-			
-			if(currentStreak > playerStats.get("bestWinStreak")) {
-				playerStats.put("bestWinStreak", currentStreak);
+		if(statsStore == null) {
+			return;
+		}
+		try {
+			if(isDraw) {
+				statsStore.recordDraw(player1Name, playMillis);
+				statsStore.recordDraw(player2Name, playMillis);
+			} else {
+				String loser = winner.equals(player1Name) ? player2Name : player1Name;
+				statsStore.recordWin(winner, playMillis);
+				statsStore.recordLoss(loser, playMillis);
 			}
-		} else {
-			playerStats.put("losses", playerStats.get("losses") + 1);
-			playerStats.put("winStreak", 0); // Reset win streak on loss
+		} catch(IOException e) {
+			System.err.println("Cannot update player statistics: " + e.getMessage());
+		}
+	}
+	
+	// Opened once at startup; -Dtictactoe.stats chooses the file
+	private static StatsStore openStatsStore()
+	{
+		try {
+			return new StatsStore(StatsStore.defaultFile());
+		} catch(IOException e) {
+			System.err.println("Player statistics will not be kept: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	// Lifetime line for the stats dialog
+	private String formatLifetimeStats(String name)
+	{
+		try {
+			PlayerStats.Snapshot lifetime = statsStore.get(name);
+			if(lifetime == null) {
+				return name + ": no games yet\n";
+			}
+			return name + ": " + lifetime.totalGames + " games, " + lifetime.wins + " won, " + lifetime.losses + " lost, "
+				+ lifetime.draws + " drawn (" + String.format("%.1f", lifetime.winRate()) + "%), best streak "
+				+ lifetime.bestWinStreak + "\n";
+		} catch(IOException e) {
+			return name + ": unavailable (" + e.getMessage() + ")\n";
 		}
 	}
 	
@@ -1036,8 +1174,8 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 			writer.write("Players: " + player1Name + " (X) vs " + player2Name + " (O)\n");
 			
 			if(competitionMode) {
-				writer.write("Mode: Competition (" + totalRounds + " rounds)\n");
-				writer.write("Current Round: " + currentRound + "\n");
+				writer.write("Mode: Competition (" + model.getTotalRounds() + " rounds)\n");
+				writer.write("Current Round: " + model.getCurrentRound() + "\n");
 			} else {
 				writer.write("Mode: Single Game\n");
 			}
@@ -1046,40 +1184,46 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 				writer.write("AI Difficulty: " + aiDifficulty + "\n");
 			}
 			
+			writer.write("Board: " + geometry + "\n");
+			
 			writer.write("Theme: " + selectedTheme + "\n");
 			writer.write("Sound: " + (soundEnabled ? "Enabled" : "Disabled") + "\n\n");
 			
 			// Current game state
 			writer.write("CURRENT GAME STATE:\n");
 			writer.write("-------------------\n");
-			for(int row = 0; row < 3; row++) {
-				for(int col = 0; col < 3; col++) {
-					int index = row * 3 + col;
-					String cell = gameButtons[index].getLabel();
-					writer.write(cell.isEmpty() ? "_" : cell);
-					if(col < 2) writer.write(" | ");
+			for(int row = 0; row < boardSize; row++) {
+				for(int col = 0; col < boardSize; col++) {
+					int index = row * boardSize + col;
+					int side = model.getCell(index);
+					writer.write(side == -1 ? "_" : mark(side));
+					if(col < boardSize - 1) writer.write(" | ");
 				}
 				writer.write("\n");
-				if(row < 2) writer.write("---------\n");
+				if(row < boardSize - 1) {
+					for(int i = 0; i < boardSize * 4 - 3; i++) writer.write("-");
+					writer.write("\n");
+				}
 			}
 			writer.write("\n");
 			
 			// Game record
 			writer.write("MOVE HISTORY:\n");
 			writer.write("-------------\n");
-			for(String move : gameRecord) {
-				writer.write(move + "\n");
+			for(int i = 0; i < model.getMoveCount(); i++) {
+				writer.write(formatMove(i, model.getMove(i)) + "\n");
 			}
 			
 			// Statistics
 			writer.write("\nPLAYER STATISTICS:\n");
 			writer.write("------------------\n");
-			writer.write("Total Games: " + playerStats.get("totalGames") + "\n");
-			writer.write("Wins: " + playerStats.get("wins") + "\n");
-			writer.write("Losses: " + playerStats.get("losses") + "\n");
-			writer.write("Draws: " + playerStats.get("draws") + "\n");
-			writer.write("Win Streak: " + playerStats.get("winStreak") + "\n");
-			writer.write("Best Streak: " + playerStats.get("bestWinStreak") + "\n");
+			PlayerStats.Snapshot snapshot = playerStats.snapshot();
+			writer.write("Total Games: " + snapshot.totalGames + "\n");
+			writer.write("Wins: " + snapshot.wins + "\n");
+			writer.write("Losses: " + snapshot.losses + "\n");
+			writer.write("Draws: " + snapshot.draws + "\n");
+			writer.write("Win Streak: " + snapshot.winStreak + "\n");
+			writer.write("Best Streak: " + snapshot.bestWinStreak + "\n");
 			
 			writer.close();
 			
@@ -1100,6 +1244,81 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		}
 	}
 	
+	// Journal mode: java -Dtictactoe.journal=games.journal TicTacToe appends
+	// every finished game to one log file instead of a file per save
+	private static GameJournal openJournal()
+	{
+		String file = System.getProperty("tictactoe.journal");
+		if(file == null) {
+			return null;
+		}
+		try {
+			// A person plays a game every few seconds at most; commit each one
+			return new GameJournal(java.nio.file.Paths.get(file), 1, 0);
+		} catch(IOException | IllegalArgumentException e) {
+			System.err.println("Cannot open game journal " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+	
+	private void appendToJournal(GameModel game)
+	{
+		if(journal == null) {
+			return;
+		}
+		try {
+			journal.append(game);
+		} catch(IOException e) {
+			JOptionPane.showMessageDialog(
+				this,
+				"Error writing the game journal: " + e.getMessage() + "\nJournal mode is now off.",
+				"Journal Error",
+				JOptionPane.ERROR_MESSAGE
+			);
+			journal = null;
+		}
+	}
+	
+	// Spectator mode: java -Dtictactoe.spectators=7778 TicTacToe lets anybody
+	// watch the matches played in this window over the network
+	private static GameServer openSpectatorServer()
+	{
+		String port = System.getProperty("tictactoe.spectators");
+		if(port == null) {
+			return null;
+		}
+		try {
+			GameServer server = new NioGameServer(Integer.parseInt(port), 1);
+			server.start();
+			return server;
+		} catch(IOException | IllegalArgumentException e) {
+			System.err.println("Cannot accept spectators on port " + port + ": " + e.getMessage());
+			return null;
+		}
+	}
+	
+	// Each match is a game of its own to spectators; whoever watched the
+	// last one sees it end
+	private void publishToSpectators()
+	{
+		if(spectatorServer == null) {
+			return;
+		}
+		stopPublishing();
+		spectatorFeed = spectatorServer.getHall().publish(model);
+		System.out.println("Spectators can watch game " + spectatorFeed.id + " on port " + spectatorServer.getPort());
+	}
+	
+	// Ends the current match's feed; nothing more of the model reaches it
+	private void stopPublishing()
+	{
+		if(spectatorFeed != null) {
+			model.removeListener(spectatorFeed);
+			spectatorFeed.finish();
+			spectatorFeed = null;
+		}
+	}
+	
 	// Sound effect methods (simulated with system beeps)
 	private void playMoveSound()
 	{
@@ -1158,14 +1377,14 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private void showHint()
 	{
-		// Prevent multiple hint dialogs
-		if(isShowingHint) {
+		// Prevent multiple hint dialogs, and no hints while the computer moves
+		if(isShowingHint || aiThinking) {
 			return;
 		}
 		
 		isShowingHint = true;
 		
-		if(gameOver) {
+		if(model.isGameOver()) {
 			JOptionPane.showMessageDialog(
 				this,
 				"Game is over! No hints needed.",
@@ -1176,7 +1395,29 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 			return;
 		}
 		
-		int bestMove = getBestMove();
+		// Search in the background and show the hint when it is ready; it is
+		// cancelled like a computer move when the game moves on
+		final int generation = ++searchGeneration;
+		final int hintMoveCount = model.getMoveCount();
+		final Position board = model.getPosition();
+		final int side = model.getSideToMove();
+		updateStatus("Finding a hint for " + getCurrentPlayerName() + "...");
+		pendingSearch = aiExecutor.submit(() -> {
+			int bestMove = computer.getBestMove(board, side);
+			EventQueue.invokeLater(() -> presentHint(bestMove, generation, hintMoveCount));
+		});
+	}
+	
+	private void presentHint(int bestMove, int generation, int hintMoveCount)
+	{
+		// Drop the hint if the game moved on while it was being computed
+		if(generation != searchGeneration || hintMoveCount != model.getMoveCount() || model.isGameOver()) {
+			isShowingHint = false;
+			return;
+		}
+		pendingSearch = null;
+		updateStatus(getCurrentPlayerName() + "'s turn");
+		
 		if(bestMove == -1) {
 			JOptionPane.showMessageDialog(
 				this,
@@ -1192,8 +1433,8 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		highlightHintMove(bestMove);
 		
 		// Show hint message
-		int row = bestMove / 3 + 1;
-		int col = bestMove % 3 + 1;
+		int row = bestMove / boardSize + 1;
+		int col = bestMove % boardSize + 1;
 		String moveDescription = "Row " + row + ", Column " + col;
 		
 		JOptionPane.showMessageDialog(
@@ -1208,96 +1449,6 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		isShowingHint = false;
 	}
 	
-	private int getBestMove()
-	{
-		// Create current board state
-		String[] board = new String[9];
-		for(int i = 0; i < 9; i++) {
-			board[i] = gameButtons[i].getLabel();
-		}
-		
-		int bestScore = Integer.MIN_VALUE;
-		int bestMove = -1;
-		
-		// Try all possible moves
-		for(int i = 0; i < 9; i++) {
-			if(board[i].equals("")) { // Empty cell
-				board[i] = currentPlayer; // Make the move
-				int score = minimax(board, 0, false, currentPlayer);
-				board[i] = ""; // Undo the move
-				
-				if(score > bestScore) {
-					bestScore = score;
-					bestMove = i;
-				}
-			}
-		}
-		
-		return bestMove;
-	}
-	
-	private int minimax(String[] board, int depth, boolean isMaximizing, String aiPlayer)
-	{
-		String opponent = aiPlayer.equals("X") ? "O" : "X";
-		
-		// Check terminal states
-		if(checkWinState(board, aiPlayer)) {
-			return 10 - depth; // Prefer quicker wins
-		}
-		if(checkWinState(board, opponent)) {
-			return depth - 10; // Prefer slower losses
-		}
-		if(isBoardFull(board)) {
-			return 0; // Draw
-		}
-		
-		if(isMaximizing) {
-			int maxEval = Integer.MIN_VALUE;
-			for(int i = 0; i < 9; i++) {
-				if(board[i].equals("")) {
-					board[i] = aiPlayer;
-					int eval = minimax(board, depth + 1, false, aiPlayer);
-					board[i] = "";
-					maxEval = Math.max(maxEval, eval);
-				}
-			}
-			return maxEval;
-		} else {
-			int minEval = Integer.MAX_VALUE;
-			for(int i = 0; i < 9; i++) {
-				if(board[i].equals("")) {
-					board[i] = opponent;
-					int eval = minimax(board, depth + 1, true, aiPlayer);
-					board[i] = "";
-					minEval = Math.min(minEval, eval);
-				}
-			}
-			return minEval;
-		}
-	}
-	
-	private boolean checkWinState(String[] board, String player)
-	{
-		for(int[] pattern : WIN_PATTERNS) {
-			if(board[pattern[0]].equals(player) &&
-			   board[pattern[1]].equals(player) &&
-			   board[pattern[2]].equals(player)) {
-				return true;
-			}
-		}
-		return false;
-	}
-	
-	private boolean isBoardFull(String[] board)
-	{
-		for(String cell : board) {
-			if(cell.equals("")) {
-				return false;
-			}
-		}
-		return true;
-	}
-	
 	private void highlightHintMove(int index)
 	{
 		gameButtons[index].setBackground(new Color(255, 255, 0)); // Yellow highlight
@@ -1339,29 +1490,14 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		isShowingLeaveDialog = false;
 	}
 	
-	private void handleRoundEnd(String winner, boolean isDraw)
+	private void handleRoundEnd(GameModel game, String winner, boolean isDraw)
 	{
+		// The game was left or restarted in the meantime
+		if(game != model || !game.isGameOver()) return;
+		
 		if(competitionMode) {
-			// Save current round record only in competition mode
-			allRoundsRecord.add(new java.util.ArrayList<>(gameRecord));
-			
-			// Update competition stats
-			String resultText;
-			if(isDraw) {
-				draws++;
-				resultText = "Round " + currentRound + ": Draw";
-			} else {
-				if(winner.equals(player1Name)) {
-					player1Wins++;
-				} else {
-					player2Wins++;
-				}
-				resultText = "Round " + currentRound + ": " + winner + " wins";
-			}
-			roundResults.add(resultText);
-			
-			// Check if competition is complete
-			if(currentRound >= totalRounds) {
+			// The model has already recorded the round and its score
+			if(model.isMatchOver()) {
 				showCompetitionResults();
 			} else {
 				// Show round result and continue to next round
@@ -1381,27 +1517,26 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	{
 		String message;
 		if(isDraw) {
-			message = "Round " + currentRound + " ended in a draw!\n\n";
+			message = "Round " + model.getCurrentRound() + " ended in a draw!\n\n";
 		} else {
-			message = "Round " + currentRound + " winner: " + winner + "!\n\n";
+			message = "Round " + model.getCurrentRound() + " winner: " + winner + "!\n\n";
 		}
 		
 		message += "Current Standings:\n";
-		message += player1Name + ": " + player1Wins + " wins\n";
-		message += player2Name + ": " + player2Wins + " wins\n";
-		message += "Draws: " + draws + "\n\n";
-		message += "Ready for Round " + (currentRound + 1) + "?";
+		message += player1Name + ": " + model.getWins(Position.X) + " wins\n";
+		message += player2Name + ": " + model.getWins(Position.O) + " wins\n";
+		message += "Draws: " + model.getDraws() + "\n\n";
+		message += "Ready for Round " + (model.getCurrentRound() + 1) + "?";
 		
 		int choice = JOptionPane.showConfirmDialog(
 			this,
 			message,
-			"Round " + currentRound + " Complete",
+			"Round " + model.getCurrentRound() + " Complete",
 			JOptionPane.YES_NO_OPTION,
 			JOptionPane.INFORMATION_MESSAGE
 		);
 		
 		if(choice == JOptionPane.YES_OPTION) {
-			currentRound++;
 			resetGameForNextRound();
 		} else {
 			System.exit(0);
@@ -1415,15 +1550,17 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		results.append("========================================\n\n");
 		
 		// Show round by round results
-		for(String result : roundResults) {
-			results.append(result).append("\n");
+		for(int i = 0; i < model.getRoundsPlayed(); i++) {
+			results.append(formatRoundResult(i)).append("\n");
 		}
 		
+		int player1Wins = model.getWins(Position.X);
+		int player2Wins = model.getWins(Position.O);
 		results.append("\n========================================\n");
 		results.append("FINAL STANDINGS:\n");
 		results.append(player1Name).append(": ").append(player1Wins).append(" wins\n");
 		results.append(player2Name).append(": ").append(player2Wins).append(" wins\n");
-		results.append("Draws: ").append(draws).append("\n\n");
+		results.append("Draws: ").append(model.getDraws()).append("\n\n");
 		
 		// Determine overall winner
 		String overallWinner;
@@ -1466,46 +1603,18 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private void resetGameForNextRound()
 	{
-		// Reset game buttons
-		for(Button button : gameButtons)
-		{
-			button.setLabel("");
-			button.setEnabled(true);
-			button.setBackground(new Color(255, 255, 255));
-			button.setForeground(new Color(70, 130, 180));
-		}
-		
-		// Reset game state but keep competition data
-		moveCount = 0;
-		gameOver = false;
-		currentPlayer = "X";
-		gameRecord.clear();
-		currentMoveNumber = 1;
+		cancelPendingSearch();
 		
-		// Update title and status
-		createTitleLabel();
-		updateStatus(getCurrentPlayerName() + "'s turn");
-		repaint();
+		// Keep competition data; boardCleared() resets the buttons
+		model.nextRound();
 	}
 	
 	private void resetCompetition()
 	{
-		// Reset all game state variables
-		moveCount = 0;
-		gameOver = false;
-		currentPlayer = "X";
-		gameRecord.clear();
-		currentMoveNumber = 1;
-		
-		// Reset competition variables completely
+		cancelPendingSearch();
+		
+		// Reset competition variables completely; startGame() builds a new model
 		competitionMode = false;
-		totalRounds = 1;
-		currentRound = 1;
-		player1Wins = 0;
-		player2Wins = 0;
-		draws = 0;
-		allRoundsRecord.clear();
-		roundResults.clear();
 		
 		// Reset player names to defaults
 		player1Name = "Player 1";
@@ -1524,36 +1633,16 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private void resetGame()
 	{
-		// Reset all game buttons
-		for(Button button : gameButtons)
-		{
-			button.setLabel("");
-			button.setEnabled(true);
-			// Reset button colors to default
-			button.setBackground(new Color(255, 255, 255)); // White background
-			button.setForeground(new Color(70, 130, 180)); // Steel Blue text
-		}
-		
-		// Reset game state completely
-		moveCount = 0;
-		gameOver = false;
-		currentPlayer = "X";
-		
-		// Reset game record for new game
-		gameRecord.clear();
-		currentMoveNumber = 1;
-		
-		// If not in competition mode, also reset round data
-		if(!competitionMode) {
-			allRoundsRecord.clear();
-			roundResults.clear();
-			currentRound = 1;
-			player1Wins = 0;
-			player2Wins = 0;
-			draws = 0;
-		}
-		
-		updateStatus(getCurrentPlayerName() + "'s turn");
+		cancelPendingSearch();
+		
+		// Play Again follows a single game, so start a fresh one-round match;
+		// boardCleared() resets the buttons. Spectators get it as a new game,
+		// its feed listening ahead of the window as in startGame()
+		stopPublishing();
+		model.startMatch(1);
+		model.removeListener(this);
+		publishToSpectators();
+		model.addListener(this);
 	}
 	
 	private void showGameMoves()
@@ -1569,7 +1658,7 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private void showSingleGameMoves()
 	{
-		if(gameRecord.isEmpty()) {
+		if(model.getMoveCount() == 0) {
 			JOptionPane.showMessageDialog(
 				this,
 				"No moves recorded yet!",
@@ -1584,28 +1673,25 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 		movesText.append("Players: ").append(player1Name).append(" (X) vs ").append(player2Name).append(" (O)\n");
 		movesText.append("========================================\n\n");
 		
-		for(String move : gameRecord) {
-			movesText.append(move).append("\n");
+		for(int i = 0; i < model.getMoveCount(); i++) {
+			movesText.append(formatMove(i, model.getMove(i))).append("\n");
 		}
 		
 		// Add game result
 		movesText.append("\n========================================\n");
-		if(gameOver) {
-			if(moveCount == 9 && !isWinningState()) {
+		if(model.isGameOver()) {
+			int winner = model.getWinner();
+			if(winner == -1) {
 				movesText.append("RESULT: Draw Game!\n");
 			} else {
-				String winner = getWinner();
-				if(winner != null) {
-					String winnerName = winner.equals("X") ? player1Name : player2Name;
-					movesText.append("WINNER: ").append(winnerName).append(" (").append(winner).append(")\n");
-				}
+				movesText.append("WINNER: ").append(playerName(winner)).append(" (").append(mark(winner)).append(")\n");
 			}
 		} else {
 			movesText.append("GAME IN PROGRESS...\n");
-			movesText.append("Current Turn: ").append(getCurrentPlayerName()).append(" (").append(currentPlayer).append(")\n");
+			movesText.append("Current Turn: ").append(getCurrentPlayerName()).append(" (").append(mark(model.getSideToMove())).append(")\n");
 		}
 		
-		movesText.append("Total Moves: ").append(gameRecord.size());
+		movesText.append("Total Moves: ").append(model.getMoveCount());
 		
 		JOptionPane.showMessageDialog(
 			this,
@@ -1617,7 +1703,7 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	
 	private void showAllRoundsMoves()
 	{
-		if(allRoundsRecord.isEmpty()) {
+		if(model.getRoundsPlayed() == 0) {
 			JOptionPane.showMessageDialog(
 				this,
 				"No completed rounds yet!",
@@ -1627,45 +1713,8 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 			return;
 		}
 		
-		StringBuilder movesText = new StringBuilder();
-		movesText.append("COMPETITION RECORD\n");
-		movesText.append("Players: ").append(player1Name).append(" (X) vs ").append(player2Name).append(" (O)\n");
-		movesText.append("========================================\n\n");
-		
-		// Show completed rounds only
-		for(int i = 0; i < allRoundsRecord.size(); i++) {
-			movesText.append("ROUND ").append(i + 1).append(":\n");
-			movesText.append("----------------------------------------\n");
-			
-			for(String move : allRoundsRecord.get(i)) {
-				movesText.append(move).append("\n");
-			}
-			
-			if(i < roundResults.size()) {
-				movesText.append("\n").append(roundResults.get(i)).append("\n");
-			}
-			movesText.append("\n");
-		}
-		
-		// Show competition stats
-		movesText.append("========================================\n");
-		movesText.append("COMPETITION STATUS:\n");
-		movesText.append(player1Name).append(": ").append(player1Wins).append(" wins\n");
-		movesText.append(player2Name).append(": ").append(player2Wins).append(" wins\n");
-		movesText.append("Draws: ").append(draws).append("\n");
-		
-		if(currentRound <= totalRounds) {
-			movesText.append("Completed: ").append(allRoundsRecord.size()).append(" of ").append(totalRounds).append(" rounds");
-		} else {
-			movesText.append("Competition Complete!");
-		}
-		
-		JOptionPane.showMessageDialog(
-			this,
-			movesText.toString(),
-			"Competition Moves Record",
-			JOptionPane.INFORMATION_MESSAGE
-		);
+		// One page of rounds at a time, formatted as it is shown
+		new HistoryViewer(this, model, player1Name, player2Name).setVisible(true);
 	}
 	
 	private void showWinMessage(String winner)
@@ -1754,9 +1803,9 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 				else
 				{
 					// Store current game state
-					String[] buttonLabels = new String[9];
-					boolean[] buttonStates = new boolean[9];
-					Color[] buttonColors = new Color[9];
+					String[] buttonLabels = new String[gameButtons.length];
+					boolean[] buttonStates = new boolean[gameButtons.length];
+					Color[] buttonColors = new Color[gameButtons.length];
 					
 					for(int i = 0; i < gameButtons.length; i++)
 					{
@@ -1780,28 +1829,27 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 					}
 					
 					// Restore winning highlights if game is over
-					if(gameOver && isWinningState())
+					if(model.isGameOver() && model.getWinner() != -1)
 					{
 						highlightWinningCombination();
 					}
 					
 					// Update status
-					if(gameOver)
+					if(model.isGameOver())
 					{
-						if(moveCount == 9 && !isWinningState())
+						if(model.getWinner() == -1)
 						{
 							updateStatus("It's a draw!");
 						}
 						else
 						{
-							String winner = getWinner();
-							if(winner != null)
-							{
-								String winnerName = winner.equals("X") ? player1Name : player2Name;
-								updateStatus(winnerName + " wins!");
-							}
+							updateStatus(playerName(model.getWinner()) + " wins!");
 						}
 					}
+					else if(aiThinking)
+					{
+						updateStatus(getCurrentPlayerName() + " is thinking...");
+					}
 					else
 					{
 						updateStatus(getCurrentPlayerName() + "'s turn");
@@ -1820,29 +1868,12 @@ class TicTacToeGame extends Frame implements ActionListener, ComponentListener
 	public void componentShown(ComponentEvent e) {}
 	public void componentHidden(ComponentEvent e) {}
 	
-	private boolean isWinningState()
-	{
-		return checkWin("X") || checkWin("O");
-	}
-	
-	private String getWinner()
-	{
-		if(checkWin("X")) return "X";
-		if(checkWin("O")) return "O";
-		return null;
-	}
-	
 	private void highlightWinningCombination()
 	{
-		for(int[] pattern : WIN_PATTERNS)
+		int line = model.getWinningLine();
+		if(line != -1)
 		{
-			if(gameButtons[pattern[0]].getLabel().equals(gameButtons[pattern[1]].getLabel()) &&
-			   gameButtons[pattern[1]].getLabel().equals(gameButtons[pattern[2]].getLabel()) &&
-			   !gameButtons[pattern[0]].getLabel().equals(""))
-			{
-				highlightWinningButtons(pattern);
-				break;
-			}
+			highlightWinningButtons(WIN_PATTERNS[line]);
 		}
 	}
 }
@@ -0,0 +1,308 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Non-interactive round robin between AI configurations:
+//   java Tournament --players Easy,Medium,Expert,MCTS:500,Depth:2
+//                   [--games 1000] [--threads N] [--size 3] [--win 3] [--seed S]
+// A player is a difficulty level (or Random), MCTS:<playouts> for Monte
+// Carlo with a fixed playout budget, or Depth:<plies> for plain minimax cut
+// off at that depth. Every pair plays the given number of games, swapping
+// X and O each game. Pairings are cut into batches run on a thread pool.
+// The standings give each player's score (a win counts 1, a draw 1/2) with
+// a 95% confidence interval. Both players are reseeded for every game from
+// the run seed, so --seed replays a tournament exactly.
+final class Tournament
+{
+	// Games per task; small enough to spread a pairing across threads
+	private static final int BATCH = 250;
+	private static final double Z_95 = 1.96;
+
+	private final List<Entrant> entrants = new ArrayList<>();
+	private long games = 1000;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int size = 3;
+	private int winLength = 3;
+	private long seed = new SplittableRandom().nextLong();
+
+	// Per-pairing results, [row][column] from the row player's side
+	private long[][] wins;
+	private long[][] draws;
+	private long[][] played;
+
+	public static void main(String[] args) throws Exception
+	{
+		Tournament tournament = new Tournament();
+		try {
+			tournament.parse(args);
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java Tournament --players Easy,Expert,MCTS:500,Depth:2 [--games 1000]");
+			System.err.println("                       [--threads N] [--size 3] [--win 3] [--seed S]");
+			System.err.println("Players: Random, " + String.join(", ", ComputerPlayer.DIFFICULTIES)
+				+ ", MCTS:<playouts>, Depth:<plies>");
+			System.exit(2);
+		}
+		tournament.run();
+	}
+
+	private void parse(String[] args)
+	{
+		for(int i = 0; i < args.length; i += 2) {
+			String option = args[i];
+			if(i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + option);
+			}
+			String value = args[i + 1];
+			try {
+				switch(option) {
+					case "--players":
+						for(String spec : value.split(",")) {
+							entrants.add(Entrant.parse(spec.trim()));
+						}
+						break;
+					case "--games": games = Long.parseLong(value); break;
+					case "--threads": threads = Integer.parseInt(value); break;
+					case "--size": size = Integer.parseInt(value); break;
+					case "--win": winLength = Integer.parseInt(value); break;
+					case "--seed": seed = Long.parseLong(value); break;
+					default: throw new IllegalArgumentException("Unknown option " + option);
+				}
+			} catch(NumberFormatException e) {
+				throw new IllegalArgumentException("Not a number for " + option + ": " + value);
+			}
+		}
+		if(entrants.size() < 2) {
+			throw new IllegalArgumentException("A round robin needs at least two players");
+		}
+		if(games < 1 || threads < 1) {
+			throw new IllegalArgumentException("Games and threads must be positive");
+		}
+		BoardGeometry.of(size, winLength); // Validates the board
+	}
+
+	private void run() throws Exception
+	{
+		BoardGeometry geometry = BoardGeometry.of(size, winLength);
+		int count = entrants.size();
+		wins = new long[count][count];
+		draws = new long[count][count];
+		played = new long[count][count];
+		System.out.println("Round robin: " + count + " players, " + games + " games per pairing, "
+			+ geometry + ", " + threads + (threads == 1 ? " thread" : " threads") + ", seed " + seed);
+
+		List<Batch> batches = new ArrayList<>();
+		for(int a = 0; a < count; a++) {
+			for(int b = a + 1; b < count; b++) {
+				for(long first = 0; first < games; first += BATCH) {
+					batches.add(new Batch(geometry, a, b, first, Math.min(games, first + BATCH)));
+				}
+			}
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "tournament");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long start = System.nanoTime();
+		try {
+			List<Future<long[]>> results = pool.invokeAll(batches);
+			for(int i = 0; i < batches.size(); i++) {
+				Batch batch = batches.get(i);
+				long[] result = results.get(i).get(); // {a wins, b wins, draws}
+				wins[batch.a][batch.b] += result[0];
+				wins[batch.b][batch.a] += result[1];
+				draws[batch.a][batch.b] += result[2];
+				draws[batch.b][batch.a] += result[2];
+				played[batch.a][batch.b] += result[0] + result[1] + result[2];
+				played[batch.b][batch.a] += result[0] + result[1] + result[2];
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		printStandings();
+		printCrossTable();
+		long total = games * count * (count - 1) / 2;
+		System.out.println(String.format("%n%d games in %.2f s, %.0f games/s", total, seconds, total / seconds));
+	}
+
+	private void printStandings()
+	{
+		int count = entrants.size();
+		Integer[] order = new Integer[count];
+		double[] scores = new double[count];
+		double[] margins = new double[count];
+		long[][] totals = new long[count][];
+		for(int p = 0; p < count; p++) {
+			order[p] = p;
+			long w = 0, d = 0, n = 0;
+			for(int q = 0; q < count; q++) {
+				w += wins[p][q];
+				d += draws[p][q];
+				n += played[p][q];
+			}
+			long l = n - w - d;
+			totals[p] = new long[] {n, w, d, l};
+			scores[p] = (w + 0.5 * d) / n;
+			// Per-game scores are 1, 1/2 or 0; normal interval on their mean
+			double variance = (w + 0.25 * d) / n - scores[p] * scores[p];
+			margins[p] = Z_95 * Math.sqrt(Math.max(0, variance) / n);
+		}
+		Arrays.sort(order, (p, q) -> Double.compare(scores[q], scores[p]));
+
+		System.out.println();
+		System.out.println(String.format("%-4s %-14s %8s %8s %8s %8s %8s %18s",
+			"Rank", "Player", "Games", "Wins", "Draws", "Losses", "Score", "95% CI"));
+		for(int rank = 0; rank < count; rank++) {
+			int p = order[rank];
+			System.out.println(String.format("%-4d %-14s %8d %8d %8d %8d %7.1f%% %8.1f%% - %5.1f%%",
+				rank + 1, entrants.get(p).name, totals[p][0], totals[p][1], totals[p][2], totals[p][3],
+				scores[p] * 100, Math.max(0, scores[p] - margins[p]) * 100, Math.min(1, scores[p] + margins[p]) * 100));
+		}
+	}
+
+	// Score of each row player against each column player
+	private void printCrossTable()
+	{
+		int count = entrants.size();
+		StringBuilder header = new StringBuilder(String.format("%n%-14s", "Score vs"));
+		for(Entrant entrant : entrants) {
+			header.append(String.format(" %10s", entrant.name));
+		}
+		System.out.println(header);
+		for(int p = 0; p < count; p++) {
+			StringBuilder row = new StringBuilder(String.format("%-14s", entrants.get(p).name));
+			for(int q = 0; q < count; q++) {
+				if(p == q) {
+					row.append(String.format(" %10s", "-"));
+				} else {
+					row.append(String.format(" %9.1f%%", (wins[p][q] + 0.5 * draws[p][q]) * 100 / played[p][q]));
+				}
+			}
+			System.out.println(row);
+		}
+	}
+
+	// Games first..last of one pairing; the players are built per batch so
+	// no engine is shared between threads
+	private final class Batch implements Callable<long[]>
+	{
+		private final BoardGeometry geometry;
+		private final int a;
+		private final int b;
+		private final long first;
+		private final long last;
+
+		Batch(BoardGeometry geometry, int a, int b, long first, long last)
+		{
+			this.geometry = geometry;
+			this.a = a;
+			this.b = b;
+			this.first = first;
+			this.last = last;
+		}
+
+		public long[] call()
+		{
+			Entrant entrantA = entrants.get(a);
+			Entrant entrantB = entrants.get(b);
+			ComputerPlayer playerA = entrantA.create(geometry);
+			ComputerPlayer playerB = entrantB.create(geometry);
+			GameModel model = new GameModel(geometry);
+			long[] result = new long[3];
+			try {
+				for(long game = first; game < last; game++) {
+					boolean aPlaysX = (game & 1) == 0;
+					long number = ((long)a * entrants.size() + b) * games + game;
+					playerA.setSeed(ComputerPlayer.gameSeed(seed, 2 * number));
+					playerB.setSeed(ComputerPlayer.gameSeed(seed, 2 * number + 1));
+					model.startMatch(1);
+					while(!model.isGameOver()) {
+						int side = model.getSideToMove();
+						boolean aToMove = (side == Position.X) == aPlaysX;
+						Position board = model.getPosition();
+						model.play(aToMove ? entrantA.getMove(playerA, board, side) : entrantB.getMove(playerB, board, side));
+					}
+					int winner = model.getWinner();
+					if(winner == -1) {
+						result[2]++;
+					} else if((winner == Position.X) == aPlaysX) {
+						result[0]++;
+					} else {
+						result[1]++;
+					}
+				}
+			} finally {
+				playerA.shutdown();
+				playerB.shutdown();
+			}
+			return result;
+		}
+	}
+
+	// One AI configuration taking part
+	private static final class Entrant
+	{
+		final String name;
+		final String difficulty; // For the ComputerPlayer levels
+		final long mctsPlayouts;
+		final int depth; // Above 0: plain minimax to this depth
+
+		private Entrant(String name, String difficulty, long mctsPlayouts, int depth)
+		{
+			this.name = name;
+			this.difficulty = difficulty;
+			this.mctsPlayouts = mctsPlayouts;
+			this.depth = depth;
+		}
+
+		static Entrant parse(String spec)
+		{
+			int colon = spec.indexOf(':');
+			if(colon < 0) {
+				if(!ComputerPlayer.isDifficulty(spec)) {
+					throw new IllegalArgumentException("Unknown player " + spec);
+				}
+				return new Entrant(spec, spec, 2000, 0);
+			}
+			String kind = spec.substring(0, colon);
+			long amount = Long.parseLong(spec.substring(colon + 1));
+			if(amount < 1) {
+				throw new IllegalArgumentException("Player " + spec + " needs a positive setting");
+			}
+			if(kind.equals("MCTS")) {
+				return new Entrant(spec, "MCTS", amount, 0);
+			} else if(kind.equals("Depth")) {
+				return new Entrant(spec, "Expert", 2000, (int)Math.min(amount, 64));
+			}
+			throw new IllegalArgumentException("Unknown player " + spec);
+		}
+
+		// Single-threaded engines; the parallelism comes from the batches
+		ComputerPlayer create(BoardGeometry geometry)
+		{
+			int searchDepth = depth > 0 ? depth : MinimaxEngine.defaultDepth(geometry);
+			MctsEngine mcts = new MctsEngine(geometry, 1);
+			mcts.setTimeBudgetMillis(0);
+			mcts.setIterationBudget(mctsPlayouts);
+			return new ComputerPlayer(new MinimaxEngine(geometry, searchDepth, 1 << 16), mcts);
+		}
+
+		int getMove(ComputerPlayer player, Position board, int side)
+		{
+			// A depth cap means the engine itself, without the solved 3x3 table
+			if(depth > 0) {
+				return player.getEngine().getBestMove(board, side);
+			}
+			return player.getMove(difficulty, board, side);
+		}
+	}
+}
@@ -0,0 +1,122 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-size transposition cache for the AI search.
+// Entries are keyed by the canonical form of a position, so rotations,
+// reflections and move-order transpositions share one slot. A new entry
+// evicts whatever occupied its slot before, which bounds memory.
+// Parallel searches share one cache without locks: each key is stored
+// XOR-ed with its entry, so a slot torn by racing writers fails the key
+// check and reads as a miss.
+final class TranspositionCache
+{
+	static final long MISS = -1L;
+
+	// Bound types for stored values
+	static final int EXACT = 0;
+	static final int LOWER = 1;
+	static final int UPPER = 2;
+
+	// Set in every stored entry so an empty slot never matches
+	private static final long VALID = 1L << 63;
+
+	private final long[] xKeys;
+	private final long[] oKeys;
+	private final long[] entries;
+	private final int mask;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	TranspositionCache(int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+		xKeys = new long[size];
+		oKeys = new long[size];
+		entries = new long[size];
+		mask = size - 1;
+	}
+
+	// Returns the packed entry for the canonical (xBits, oBits), or MISS
+	long probe(long xBits, long oBits)
+	{
+		int slot = slotOf(xBits, oBits);
+		long entry = entries[slot];
+		if(entry != 0 && (xKeys[slot] ^ entry) == xBits && (oKeys[slot] ^ entry) == oBits) {
+			hits.increment();
+			return entry;
+		}
+		misses.increment();
+		return MISS;
+	}
+
+	// move is in canonical coordinates; depth is the remaining search depth
+	void store(long xBits, long oBits, int value, int bound, int move, int depth)
+	{
+		int slot = slotOf(xBits, oBits);
+		long old = entries[slot];
+		if(old != 0 && ((xKeys[slot] ^ old) != xBits || (oKeys[slot] ^ old) != oBits)) {
+			evictions.increment();
+		}
+		long entry = VALID
+			| (value & 0xFFFFFFFFL)
+			| ((long)bound << 32)
+			| ((long)(move + 1) << 34)
+			| ((long)Math.min(depth, 0xFF) << 42);
+		xKeys[slot] = xBits ^ entry;
+		oKeys[slot] = oBits ^ entry;
+		entries[slot] = entry;
+	}
+
+	// Forget every entry; must not run while a search is using the cache
+	void clear()
+	{
+		java.util.Arrays.fill(entries, 0L);
+	}
+
+	static int value(long entry)
+	{
+		return (int)entry;
+	}
+
+	static int bound(long entry)
+	{
+		return (int)(entry >>> 32) & 0x3;
+	}
+
+	static int move(long entry)
+	{
+		return ((int)(entry >>> 34) & 0xFF) - 1;
+	}
+
+	static int depth(long entry)
+	{
+		return (int)(entry >>> 42) & 0xFF;
+	}
+
+	long getHits()
+	{
+		return hits.sum();
+	}
+
+	long getMisses()
+	{
+		return misses.sum();
+	}
+
+	long getEvictions()
+	{
+		return evictions.sum();
+	}
+
+	int getCapacity()
+	{
+		return entries.length;
+	}
+
+	private int slotOf(long xBits, long oBits)
+	{
+		long hash = (xBits * 0x9E3779B97F4A7C15L) ^ (oBits * 0xC2B2AE3D27D4EB4FL);
+		return (int)(hash ^ (hash >>> 32)) & mask;
+	}
+}
@@ -0,0 +1,338 @@
+// Binary frames between networked game clients and the game servers. Every
+// frame starts with a type byte and has a fixed length for its type, except
+// BOARD and DELTA, whose length follows from their sixth byte. Game ids are
+// 32-bit big-endian; a cell is one byte (boards have at most 64 cells).
+//   client  JOIN size win rating      6  wait for an opponent on that board;
+//                flags                   rating is 16 bits, 0 for unrated, and
+//                                        flags may hold ACCEPTS_COMPUTER
+//           MOVE game cell            6  place a mark, cells counted from 0
+//           LEAVE                     1  give up the current game or stop waiting
+//           SYNC                      1  ask for the board of the current game
+//           WATCH game                5  follow a game or match as a spectator;
+//                                        game 0 is the newest one
+//           UNWATCH                   1  stop following it
+//   server  WAITING                   1  no opponent yet
+//           START game side size win  8  a game began; X moves first
+//           MOVE game side|cell       6  a mark was placed, sent to both players;
+//                                        the side is the top bit of the cell byte
+//           END game result           6  X, O or DRAW, ORed with FORFEIT when a
+//                                        player left
+//           ERROR code                2  the last frame was refused
+//           BOARD game size win x o   7 + 2 * ceil(cells / 8), one bit per cell
+//                                        for each side, lowest cell first
+//           MATCH game round rounds   16 the score of the watched game, each
+//                 xWins oWins draws      count 16 bits, then the END result
+//                 result                 or NO_RESULT while it is on
+//           DELTA game count entries  6 + count, at most MAX_DELTA_ENTRIES:
+//                                        a spectator's updates since the last
+//                                        tick, one byte each (see below)
+// A spectator gets BOARD and MATCH when it starts watching, and again if
+// the match restarts, then DELTA frames. A DELTA entry is side|cell for a
+// mark, RESULT_ENTRY ORed with the END result, or NEXT_ROUND when the
+// board is cleared for the next round of a match.
+// A move costs six bytes each way, against 10 to 30 for a line of text.
+final class WireProtocol
+{
+	static final byte JOIN = 1;
+	static final byte MOVE = 2;
+	static final byte LEAVE = 3;
+	static final byte SYNC = 4;
+	static final byte WAITING = 5;
+	static final byte START = 6;
+	static final byte END = 7;
+	static final byte ERROR = 8;
+	static final byte BOARD = 9;
+	static final byte WATCH = 10;
+	static final byte UNWATCH = 11;
+	static final byte MATCH = 12;
+	static final byte DELTA = 13;
+
+	// END results
+	static final int DRAW = 2;
+	static final int FORFEIT = 0x80;
+	static final int NO_RESULT = 0xFF;
+
+	// JOIN flags: a computer opponent will do if no player turns up
+	static final int ACCEPTS_COMPUTER = 1;
+
+	// DELTA entries other than marks; cells never reach 0x40
+	static final int RESULT_ENTRY = 0x40;
+	static final int NEXT_ROUND = 0x60;
+	static final int MAX_DELTA_ENTRIES = 64;
+
+	// ERROR codes
+	static final int UNKNOWN_FRAME = 1;
+	static final int BAD_BOARD = 2;
+	static final int ALREADY_IN_GAME = 3;
+	static final int NOT_IN_GAME = 4;
+	static final int WRONG_GAME = 5;
+	static final int GAME_OVER = 6;
+	static final int NOT_YOUR_TURN = 7;
+	static final int BAD_CELL = 8;
+	static final int NO_SUCH_GAME = 9;
+
+	private static final int SIDE_BIT = 0x80;
+
+	// Longest frame either side sends: a full DELTA frame
+	static final int MAX_FRAME = 6 + MAX_DELTA_ENTRIES;
+
+	private WireProtocol()
+	{
+	}
+
+	// Length of the frame that starts with these bytes, as far as they tell:
+	// for a BOARD frame that is 6 until its size byte is in. -1 for a type
+	// that does not exist
+	static int frameLength(byte[] frame, int have)
+	{
+		switch(frame[0]) {
+			case LEAVE:
+			case SYNC:
+			case UNWATCH:
+			case WAITING:
+				return 1;
+			case ERROR:
+				return 2;
+			case WATCH:
+				return 5;
+			case JOIN:
+			case MOVE:
+			case END:
+				return 6;
+			case START:
+				return 8;
+			case MATCH:
+				return 16;
+			case BOARD:
+				return have < 6 ? 6 : boardLength(frame[5]);
+			case DELTA:
+				return have < 6 ? 6 : 6 + (frame[5] & 0xFF);
+			default:
+				return -1;
+		}
+	}
+
+	private static int boardLength(int size)
+	{
+		return 7 + 2 * ((size * size + 7) / 8);
+	}
+
+	static byte[] join(BoardGeometry geometry, int rating, boolean acceptsComputer)
+	{
+		return new byte[] {
+			JOIN, (byte)geometry.getSize(), (byte)geometry.getWinLength(), (byte)(rating >>> 8), (byte)rating,
+			(byte)(acceptsComputer ? ACCEPTS_COMPUTER : 0)
+		};
+	}
+
+	// From a client the side is left out
+	static byte[] move(int game, int cell, int side)
+	{
+		byte[] frame = withGame(MOVE, game, 6);
+		frame[5] = mark(cell, side);
+		return frame;
+	}
+
+	static byte[] leave()
+	{
+		return new byte[] { LEAVE };
+	}
+
+	static byte[] sync()
+	{
+		return new byte[] { SYNC };
+	}
+
+	static byte[] watch(int game)
+	{
+		return withGame(WATCH, game, 5);
+	}
+
+	static byte[] unwatch()
+	{
+		return new byte[] { UNWATCH };
+	}
+
+	static byte[] waiting()
+	{
+		return new byte[] { WAITING };
+	}
+
+	static byte[] start(int game, int side, BoardGeometry geometry)
+	{
+		byte[] frame = withGame(START, game, 8);
+		frame[5] = (byte)side;
+		frame[6] = (byte)geometry.getSize();
+		frame[7] = (byte)geometry.getWinLength();
+		return frame;
+	}
+
+	static byte[] end(int game, int winner, boolean forfeit)
+	{
+		byte[] frame = withGame(END, game, 6);
+		frame[5] = (byte)result(winner, forfeit);
+		return frame;
+	}
+
+	// The result byte of END and MATCH frames
+	static int result(int winner, boolean forfeit)
+	{
+		return (winner == -1 ? DRAW : winner) | (forfeit ? FORFEIT : 0);
+	}
+
+	static byte[] error(int code)
+	{
+		return new byte[] { ERROR, (byte)code };
+	}
+
+	static byte[] board(int game, Position position)
+	{
+		BoardGeometry geometry = position.getGeometry();
+		int bytes = (geometry.getCellCount() + 7) / 8;
+		byte[] frame = withGame(BOARD, game, 7 + 2 * bytes);
+		frame[5] = (byte)geometry.getSize();
+		frame[6] = (byte)geometry.getWinLength();
+		for(int side = Position.X; side <= Position.O; side++) {
+			long bits = position.bits(side);
+			for(int i = 0; i < bytes; i++) {
+				frame[7 + side * bytes + i] = (byte)(bits >>> (8 * i));
+			}
+		}
+		return frame;
+	}
+
+	static byte[] match(int game, int round, int rounds, int xWins, int oWins, int draws, int result)
+	{
+		byte[] frame = withGame(MATCH, game, 16);
+		int[] counts = { round, rounds, xWins, oWins, draws };
+		for(int i = 0; i < counts.length; i++) {
+			frame[5 + 2 * i] = (byte)(counts[i] >>> 8);
+			frame[6 + 2 * i] = (byte)counts[i];
+		}
+		frame[15] = (byte)result;
+		return frame;
+	}
+
+	// One frame of up to MAX_DELTA_ENTRIES entries from events[from, to)
+	static byte[] delta(int game, byte[] events, int from, int to)
+	{
+		byte[] frame = withGame(DELTA, game, 6 + to - from);
+		frame[5] = (byte)(to - from);
+		System.arraycopy(events, from, frame, 6, to - from);
+		return frame;
+	}
+
+	static byte mark(int cell, int side)
+	{
+		return (byte)(cell | (side == Position.O ? SIDE_BIT : 0));
+	}
+
+	private static byte[] withGame(byte type, int game, int length)
+	{
+		byte[] frame = new byte[length];
+		frame[0] = type;
+		frame[1] = (byte)(game >>> 24);
+		frame[2] = (byte)(game >>> 16);
+		frame[3] = (byte)(game >>> 8);
+		frame[4] = (byte)game;
+		return frame;
+	}
+
+	// Fields of received frames
+
+	static int game(byte[] frame)
+	{
+		return (frame[1] & 0xFF) << 24 | (frame[2] & 0xFF) << 16 | (frame[3] & 0xFF) << 8 | (frame[4] & 0xFF);
+	}
+
+	static int joinRating(byte[] frame)
+	{
+		return (frame[3] & 0xFF) << 8 | (frame[4] & 0xFF);
+	}
+
+	static boolean joinAcceptsComputer(byte[] frame)
+	{
+		return (frame[5] & ACCEPTS_COMPUTER) != 0;
+	}
+
+	static int moveCell(byte[] frame)
+	{
+		return markCell(frame[5]);
+	}
+
+	static int moveSide(byte[] frame)
+	{
+		return markSide(frame[5]);
+	}
+
+	// Cell and side of a MOVE frame's cell byte or a DELTA mark entry
+	static int markCell(byte mark)
+	{
+		return mark & ~SIDE_BIT & 0xFF;
+	}
+
+	static int markSide(byte mark)
+	{
+		return (mark & SIDE_BIT) != 0 ? Position.O : Position.X;
+	}
+
+	// Whether a DELTA entry is a mark rather than a result or NEXT_ROUND
+	static boolean isMark(byte entry)
+	{
+		return (entry & RESULT_ENTRY) == 0;
+	}
+
+	// Position.X, Position.O or -1 for a draw
+	static int endWinner(byte[] frame)
+	{
+		return resultWinner(frame[5]);
+	}
+
+	static boolean endForfeit(byte[] frame)
+	{
+		return (frame[5] & FORFEIT) != 0;
+	}
+
+	// Winner in the result byte of END and MATCH frames, or in a DELTA
+	// result entry
+	static int resultWinner(int result)
+	{
+		int winner = result & 0x03;
+		return winner == DRAW ? -1 : winner;
+	}
+
+	// round, rounds, xWins, oWins or draws of a MATCH frame
+	static int matchCount(byte[] frame, int index)
+	{
+		return (frame[5 + 2 * index] & 0xFF) << 8 | (frame[6 + 2 * index] & 0xFF);
+	}
+
+	static Position readBoard(byte[] frame)
+	{
+		BoardGeometry geometry = BoardGeometry.of(frame[5], frame[6]);
+		int bytes = (geometry.getCellCount() + 7) / 8;
+		long[] bits = new long[2];
+		for(int side = Position.X; side <= Position.O; side++) {
+			for(int i = 0; i < bytes; i++) {
+				bits[side] |= (frame[7 + side * bytes + i] & 0xFFL) << (8 * i);
+			}
+		}
+		return new Position(geometry, bits[Position.X], bits[Position.O]);
+	}
+
+	static String describeError(int code)
+	{
+		switch(code) {
+			case UNKNOWN_FRAME: return "Unknown frame";
+			case BAD_BOARD: return "No such board";
+			case ALREADY_IN_GAME: return "Already in a game";
+			case NOT_IN_GAME: return "Not in a game";
+			case WRONG_GAME: return "Not the current game";
+			case GAME_OVER: return "The game is over";
+			case NOT_YOUR_TURN: return "Not your turn";
+			case BAD_CELL: return "Not an empty cell";
+			case NO_SUCH_GAME: return "No such game";
+			default: return "Error " + code;
+		}
+	}
+}